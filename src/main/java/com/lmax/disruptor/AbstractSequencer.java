@@ -72,6 +72,14 @@ public abstract class AbstractSequencer implements Sequencer {
         this.waitStrategy = waitStrategy;
     }
 
+    /**
+     * @return the wait strategy used by this sequencer.
+     */
+    WaitStrategy getWaitStrategy()
+    {
+        return waitStrategy;
+    }
+
     /**
      * @see Sequencer#getCursor()
      */
@@ -99,6 +107,19 @@ public abstract class AbstractSequencer implements Sequencer {
         SequenceGroups.addSequences(this, SEQUENCE_UPDATER, this, gatingSequences);
     }
 
+    /**
+     * Add a gating sequence positioned by something other than the cursor, such as the barrier of the processor
+     * owning it.  As with {@link #addGatingSequences(Sequence...)} the position is read again once the sequence is
+     * gating, so it must never be behind a position a publisher may already have passed.
+     *
+     * @param gatingSequence to add.
+     * @param position       to set the sequence to.
+     */
+    final void addGatingSequence(final Sequence gatingSequence, final Cursored position)
+    {
+        SequenceGroups.addSequences(this, SEQUENCE_UPDATER, position, gatingSequence);
+    }
+
     /**
      * @see Sequencer#removeGatingSequence(Sequence)
      * 移除某个消费者的偏移量
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.ThreadHints;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Wait strategy that spins, then yields, then parks, tuning how long it spends in each phase from the waits it
+ * has recently seen.</p>
+ *
+ * <p>Each waiting thread keeps exponentially weighted moving averages of the gap between events arriving and of how
+ * long its waits last.  The spin budget tracks twice the average gap, so that at high rates the next event is caught
+ * without a context switch, and collapses to nothing once events are routinely further apart than the maximum spin
+ * time, as there is then no point burning CPU on them.  The gap is measured per event across batches, so it is not
+ * inflated by the latency of parking and spinning resumes as soon as the rate picks up again.  Parking starts at a
+ * quarter of the average wait and doubles up to the maximum park time.</p>
+ *
+ * <p>Spinning and yielding are also capped by a CPU budget: the fraction of wall clock time each waiter may spend
+ * busy waiting.  Once a waiter has used its share of the current window it parks straight away until the next
+ * window.</p>
+ *
+ * <p>The statistics are kept per waiting thread rather than per barrier, as the handlers of a group, and the workers
+ * of a pool, share one barrier.  Publishers are never signalled, so the latency of a parked waiter is bounded by the
+ * maximum park time.</p>
+ */
+public final class AdaptiveWaitStrategy implements WaitStrategy
+{
+    private static final int SPIN_TRIES = 100;
+    private static final int EWMA_SHIFT = 3;
+    private static final long BUDGET_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MIN_PARK_NANOS = 1000;
+
+    private final long maxSpinNanos;
+    private final long maxParkNanos;
+    private final double cpuBudget;
+    private final ThreadLocal<WaitState> waitStates = new ThreadLocal<WaitState>()
+    {
+        @Override
+        protected WaitState initialValue()
+        {
+            return new WaitState(maxSpinNanos);
+        }
+    };
+
+    /**
+     * Create an adaptive wait strategy that spins for at most 50us, parks for at most 1ms and may spend 10% of each
+     * waiting thread's time busy waiting.
+     */
+    public AdaptiveWaitStrategy()
+    {
+        this(50, 1000, TimeUnit.MICROSECONDS, 0.1);
+    }
+
+    /**
+     * @param maxSpinTime upper bound of the adaptive spin and yield budget.
+     * @param maxParkTime upper bound of a single park, and so of the wake up latency once parked.
+     * @param units       of maxSpinTime and maxParkTime.
+     * @param cpuBudget   fraction of time, greater than 0 and at most 1, a waiting thread may spend busy waiting.
+     */
+    public AdaptiveWaitStrategy(final long maxSpinTime, final long maxParkTime, final TimeUnit units, final double cpuBudget)
+    {
+        if (cpuBudget <= 0 || cpuBudget > 1)
+        {
+            throw new IllegalArgumentException("cpuBudget must be greater than 0 and at most 1");
+        }
+
+        this.maxSpinNanos = units.toNanos(maxSpinTime);
+        this.maxParkNanos = Math.max(units.toNanos(maxParkTime), MIN_PARK_NANOS);
+        this.cpuBudget = cpuBudget;
+    }
+
+    @Override
+    public long waitFor(
+        final long sequence, final Sequence cursor, final Sequence dependentSequence, final SequenceBarrier barrier)
+        throws AlertException, InterruptedException
+    {
+        long availableSequence;
+        if ((availableSequence = dependentSequence.get()) >= sequence)
+        {
+            return availableSequence;
+        }
+
+        final WaitState state = waitStates.get();
+        final long startTime = System.nanoTime();
+        state.rollBudgetWindow(startTime);
+
+        final long busyBudget = Math.min(state.spinBudgetNanos, state.remainingBudgetNanos(cpuBudget));
+        final long spinUntil = startTime + (busyBudget >> 1);
+        final long yieldUntil = startTime + busyBudget;
+        long parkNanos = clampPark(state.ewmaWaitNanos >> 2);
+        long now = startTime;
+        int counter = SPIN_TRIES;
+
+        while ((availableSequence = dependentSequence.get()) < sequence)
+        {
+            barrier.checkAlert();
+
+            if (now < yieldUntil)
+            {
+                if (--counter == 0)
+                {
+                    counter = SPIN_TRIES;
+                    now = System.nanoTime();
+                }
+
+                if (now < spinUntil)
+                {
+                    ThreadHints.onSpinWait();
+                }
+                else
+                {
+                    Thread.yield();
+                    now = System.nanoTime();
+                }
+            }
+            else
+            {
+                LockSupport.parkNanos(parkNanos);
+                parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+            }
+        }
+
+        state.onWaitCompleted(
+            startTime, System.nanoTime(), Math.min(now, yieldUntil) - startTime, availableSequence, maxSpinNanos);
+
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking()
+    {
+    }
+
+    /**
+     * @return the current spin and yield budget of the calling thread.
+     */
+    long getSpinBudgetNanos()
+    {
+        return waitStates.get().spinBudgetNanos;
+    }
+
+    /**
+     * @return the time the calling thread has spent busy waiting in the current CPU budget window.
+     */
+    long getWindowBusyNanos()
+    {
+        return waitStates.get().windowBusyNanos;
+    }
+
+    private long clampPark(final long parkNanos)
+    {
+        return Math.max(MIN_PARK_NANOS, Math.min(parkNanos, maxParkNanos));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AdaptiveWaitStrategy{" +
+            "maxSpinNanos=" + maxSpinNanos +
+            ", maxParkNanos=" + maxParkNanos +
+            ", cpuBudget=" + cpuBudget +
+            '}';
+    }
+
+    /**
+     * 单个等待线程的统计信息
+     */
+    private static final class WaitState
+    {
+        private long ewmaWaitNanos;
+        private long ewmaGapNanos;
+        private long lastArrivalNanos;
+        private long lastAvailableSequence = Long.MIN_VALUE;
+        private long spinBudgetNanos;
+        private long windowStartNanos;
+        private long windowBusyNanos;
+
+        WaitState(final long spinBudgetNanos)
+        {
+            this.spinBudgetNanos = spinBudgetNanos;
+            this.windowStartNanos = System.nanoTime();
+            this.lastArrivalNanos = windowStartNanos;
+        }
+
+        void rollBudgetWindow(final long now)
+        {
+            if (now - windowStartNanos >= BUDGET_WINDOW_NANOS)
+            {
+                windowStartNanos = now;
+                windowBusyNanos = 0;
+            }
+        }
+
+        long remainingBudgetNanos(final double cpuBudget)
+        {
+            return Math.max(0, (long) (BUDGET_WINDOW_NANOS * cpuBudget) - windowBusyNanos);
+        }
+
+        void onWaitCompleted(
+            final long startTime,
+            final long endTime,
+            final long busyNanos,
+            final long availableSequence,
+            final long maxSpinNanos)
+        {
+            ewmaWaitNanos += ((endTime - startTime) - ewmaWaitNanos) >> EWMA_SHIFT;
+            windowBusyNanos += busyNanos;
+
+            if (lastAvailableSequence != Long.MIN_VALUE)
+            {
+                // Events taken without waiting are counted here too, giving the average gap per event.
+                final long events = Math.max(1, availableSequence - lastAvailableSequence);
+                final long gapNanos = (endTime - lastArrivalNanos) / events;
+                ewmaGapNanos += (gapNanos - ewmaGapNanos) >> EWMA_SHIFT;
+
+                final long target = ewmaGapNanos << 1;
+                spinBudgetNanos = target <= maxSpinNanos ? Math.max(target, maxSpinNanos >> 3) : 0;
+            }
+            lastArrivalNanos = endTime;
+            lastAvailableSequence = availableSequence;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.lmax.disruptor.util.ThreadHints;
+
+/**
+ * Idle strategy that progressively backs off from busy spinning, to yielding, to parking for an exponentially
+ * increasing period of time up to a maximum.
+ * <p>
+ * This gives low latency when there is a steady flow of work and very low CPU usage when idle.  The longest that
+ * work will go unnoticed is bounded by the maximum park period.
+ *
+ * 逐步退避的空闲策略：自旋，让出，挂起
+ */
+public final class BackoffIdleStrategy implements IdleStrategy {
+    private static final int DEFAULT_MAX_SPINS = 100;
+    private static final int DEFAULT_MAX_YIELDS = 10;
+    private static final long DEFAULT_MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long DEFAULT_MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int maxSpins;
+    private final int maxYields;
+    private final long minParkNanos;
+    private final long maxParkNanos;
+
+    private int spins;
+    private int yields;
+    private long parkNanos;
+
+    public BackoffIdleStrategy()
+    {
+        this(DEFAULT_MAX_SPINS, DEFAULT_MAX_YIELDS, DEFAULT_MIN_PARK_NANOS, DEFAULT_MAX_PARK_NANOS);
+    }
+
+    /**
+     * @param maxSpins     to busy spin for before yielding.
+     * @param maxYields    to yield for before parking.
+     * @param minParkNanos to park for on the first park, doubled on each subsequent park.
+     * @param maxParkNanos to park for at most.
+     */
+    public BackoffIdleStrategy(final int maxSpins, final int maxYields, final long minParkNanos, final long maxParkNanos) {
+        if (minParkNanos < 1 || maxParkNanos < minParkNanos) {
+            throw new IllegalArgumentException("park period must be at least 1ns and maxParkNanos >= minParkNanos");
+        }
+
+        this.maxSpins = maxSpins;
+        this.maxYields = maxYields;
+        this.minParkNanos = minParkNanos;
+        this.maxParkNanos = maxParkNanos;
+        reset();
+    }
+
+    @Override
+    public void idle(final int workCount) {
+        if (workCount > 0) {
+            reset();
+            return;
+        }
+
+        if (spins < maxSpins) {
+            ++spins;
+            ThreadHints.onSpinWait();
+        }
+        else if (yields < maxYields) {
+            ++yields;
+            Thread.yield();
+        }
+        else {
+            LockSupport.parkNanos(parkNanos);
+            parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+        }
+    }
+
+    @Override
+    public void reset() {
+        spins = 0;
+        yields = 0;
+        parkNanos = minParkNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BackoffIdleStrategy{" +
+            "maxSpins=" + maxSpins +
+            ", maxYields=" + maxYields +
+            ", minParkNanos=" + minParkNanos +
+            ", maxParkNanos=" + maxParkNanos +
+            '}';
+    }
+}
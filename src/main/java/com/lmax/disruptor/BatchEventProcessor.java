@@ -69,6 +69,33 @@ public final class BatchEventProcessor<T> implements EventProcessor {
      */
     private final TimeoutHandler timeoutHandler;
     private final BatchStartAware batchStartAware;
+    private final ResyncAware resyncAware;
+    /**
+     * 推进序号后需要通知的等待策略，不感知进度时为null
+     */
+    private final ProgressAwareWaitStrategy progressAwareWaitStrategy;
+    /**
+     * tick回调，只有EventHandler实现了TickHandler并且使用TickingBlockingWaitStrategy时才不为null
+     */
+    private final TickHandler tickHandler;
+    private final Ticker ticker;
+    private long lastTickCount;
+    /**
+     * 被ConsumerLagMonitor摘除时指向需要重新加入的ringBuffer，否则为null
+     */
+    private volatile RingBuffer<?> detachedFrom;
+    /**
+     * 可选的统计，为null时不记录
+     */
+    private ProcessorMetrics processorMetrics;
+    /**
+     * 可选的延迟追踪阶段，为null时不记录
+     */
+    private LatencyTracer.Stage latencyStage;
+    /**
+     * 可选的慢事件采样，为null时不计时
+     */
+    private SlowEventSampler<? super T> slowEventSampler;
 
     /**
      * Construct a {@link EventProcessor} that will automatically track the progress by updating its sequence when
@@ -96,6 +123,40 @@ public final class BatchEventProcessor<T> implements EventProcessor {
             (eventHandler instanceof BatchStartAware) ? (BatchStartAware) eventHandler : null;
         timeoutHandler =
             (eventHandler instanceof TimeoutHandler) ? (TimeoutHandler) eventHandler : null;
+        resyncAware =
+            (eventHandler instanceof ResyncAware) ? (ResyncAware) eventHandler : null;
+        progressAwareWaitStrategy = progressAwareWaitStrategyOf(sequenceBarrier);
+
+        final Ticker barrierTicker = tickerOf(sequenceBarrier);
+        if (eventHandler instanceof TickHandler && barrierTicker != null) {
+            tickHandler = (TickHandler) eventHandler;
+            ticker = barrierTicker;
+            lastTickCount = barrierTicker.getTickCount();
+        }
+        else {
+            tickHandler = null;
+            ticker = null;
+        }
+    }
+
+    private static Ticker tickerOf(final SequenceBarrier sequenceBarrier) {
+        if (sequenceBarrier instanceof ProcessingSequenceBarrier) {
+            final WaitStrategy waitStrategy = ((ProcessingSequenceBarrier) sequenceBarrier).getWaitStrategy();
+            if (waitStrategy instanceof TickingBlockingWaitStrategy) {
+                return ((TickingBlockingWaitStrategy) waitStrategy).getTicker();
+            }
+        }
+        return null;
+    }
+
+    static ProgressAwareWaitStrategy progressAwareWaitStrategyOf(final SequenceBarrier sequenceBarrier) {
+        if (sequenceBarrier instanceof ProcessingSequenceBarrier) {
+            final WaitStrategy waitStrategy = ((ProcessingSequenceBarrier) sequenceBarrier).getWaitStrategy();
+            if (waitStrategy instanceof ProgressAwareWaitStrategy) {
+                return (ProgressAwareWaitStrategy) waitStrategy;
+            }
+        }
+        return null;
     }
 
     @Override
@@ -115,6 +176,35 @@ public final class BatchEventProcessor<T> implements EventProcessor {
         return running.get() != IDLE;
     }
 
+    /**
+     * @return true if this processor has been removed from gating by a {@link ConsumerLagMonitor} and has not yet
+     * rejoined the ring buffer.
+     */
+    public boolean isDetached()
+    {
+        return detachedFrom != null;
+    }
+
+    /**
+     * @return true if the barrier of this processor waits on other processors as well as on the cursor, or if that
+     * can not be told from the barrier.
+     */
+    boolean hasUpstreamDependencies() {
+        return !(sequenceBarrier instanceof ProcessingSequenceBarrier) ||
+            ((ProcessingSequenceBarrier) sequenceBarrier).hasDependents();
+    }
+
+    /**
+     * Flag this processor as detached, it will skip to the available sequence of its barrier and rejoin the gating
+     * sequences of the ring buffer before handling its next batch.
+     *
+     * @param ringBuffer that this processor's sequence has been removed from.
+     */
+    void detach(final RingBuffer<?> ringBuffer)
+    {
+        detachedFrom = ringBuffer;
+    }
+
     /**
      * Set a new {@link ExceptionHandler} for handling exceptions propagated out of the {@link BatchEventProcessor}
      *
@@ -127,6 +217,57 @@ public final class BatchEventProcessor<T> implements EventProcessor {
         this.exceptionHandler = exceptionHandler;
     }
 
+    /**
+     * Set the {@link ProcessorMetrics} to record the batches of this processor to, must be called before the processor
+     * is started.  A {@link ProcessorMetrics} must not be shared with another processor.
+     *
+     * @param processorMetrics to record to, or <code>null</code> to stop recording.
+     */
+    public void setProcessorMetrics(final ProcessorMetrics processorMetrics)
+    {
+        this.processorMetrics = processorMetrics;
+    }
+
+    /**
+     * @return the metrics recorded by this processor, or <code>null</code> if none have been set.
+     */
+    public ProcessorMetrics getProcessorMetrics()
+    {
+        return processorMetrics;
+    }
+
+    /**
+     * Set the {@link LatencyTracer.Stage} to record the latency of sampled events handled by this processor to, must
+     * be called before the processor is started.  A stage must not be shared with another processor.
+     *
+     * @param latencyStage to record to, or <code>null</code> to stop recording.
+     */
+    public void setLatencyStage(final LatencyTracer.Stage latencyStage)
+    {
+        this.latencyStage = latencyStage;
+    }
+
+    public LatencyTracer.Stage getLatencyStage()
+    {
+        return latencyStage;
+    }
+
+    /**
+     * Set the {@link SlowEventSampler} to time each event handled by this processor with, must be called before the
+     * processor is started.
+     *
+     * @param slowEventSampler to record slow events to, or <code>null</code> to stop timing events.
+     */
+    public void setSlowEventSampler(final SlowEventSampler<? super T> slowEventSampler)
+    {
+        this.slowEventSampler = slowEventSampler;
+    }
+
+    public SlowEventSampler<? super T> getSlowEventSampler()
+    {
+        return slowEventSampler;
+    }
+
     /**
      * It is ok to have another thread rerun this method after a halt().
      *
@@ -171,11 +312,37 @@ public final class BatchEventProcessor<T> implements EventProcessor {
     private void processEvents() {
         T event = null;
         long nextSequence = sequence.get() + 1L;
+        final ProcessorMetrics metrics = processorMetrics;
+        final LatencyTracer.Stage stage = latencyStage;
+        final SlowEventSampler<? super T> sampler = slowEventSampler;
+        //上一批次结束的时间，作为下一次等待的开始时间
+        long lastNanoTime = metrics != null ? System.nanoTime() : 0L;
 
         while (true) {
             try {
                 //获取可用的序号
                 final long availableSequence = sequenceBarrier.waitFor(nextSequence);
+                //每个批次检查一次是否被摘除
+                if (detachedFrom != null) {
+                    nextSequence = resync(nextSequence);
+                    continue;
+                }
+                final long firstSequence = nextSequence;
+                //只有JFR正在记录时才为长批次事件计时
+                final boolean recordLongBatch = FlightRecorderEvents.isLongBatchRecorded();
+                long batchStartCursor = 0L;
+                if (metrics != null) {
+                    batchStartCursor = metrics.readCursor();
+                    final long batchStartNanoTime = System.nanoTime();
+                    metrics.recordWait(lastNanoTime, batchStartNanoTime);
+                    if (availableSequence >= nextSequence) {
+                        metrics.beginBatch(batchStartNanoTime);
+                    }
+                    lastNanoTime = batchStartNanoTime;
+                }
+                else if (recordLongBatch) {
+                    lastNanoTime = System.nanoTime();
+                }
                 if (batchStartAware != null && availableSequence >= nextSequence) {
                     batchStartAware.onBatchStart(availableSequence - nextSequence + 1);
                 }
@@ -184,10 +351,48 @@ public final class BatchEventProcessor<T> implements EventProcessor {
                     //获取整个event
                     event = dataProvider.get(nextSequence);
                     //endOfBatch代表是否是本批次的末尾
-                    eventHandler.onEvent(event, nextSequence, nextSequence == availableSequence);
+                    if (stage != null && stage.isSampled(nextSequence)) {
+                        final long startTime = System.nanoTime();
+                        eventHandler.onEvent(event, nextSequence, nextSequence == availableSequence);
+                        final long endTime = System.nanoTime();
+                        stage.record(nextSequence, startTime, endTime);
+                        if (sampler != null) {
+                            sampler.sample(event, nextSequence, startTime, endTime);
+                        }
+                    }
+                    else if (sampler != null) {
+                        final long startTime = sampler.nanoTime();
+                        eventHandler.onEvent(event, nextSequence, nextSequence == availableSequence);
+                        sampler.sample(event, nextSequence, startTime, sampler.nanoTime());
+                    }
+                    else {
+                        eventHandler.onEvent(event, nextSequence, nextSequence == availableSequence);
+                    }
                     nextSequence++;
                 }
-                sequence.set(availableSequence);
+
+                if ((metrics != null || recordLongBatch) && nextSequence > firstSequence) {
+                    final long batchStartNanoTime = lastNanoTime;
+                    lastNanoTime = System.nanoTime();
+                    final long batchNanoTime = lastNanoTime - batchStartNanoTime;
+                    if (metrics != null) {
+                        metrics.recordBatch(
+                            firstSequence - 1L, batchStartCursor, nextSequence - firstSequence, batchStartNanoTime, lastNanoTime);
+                    }
+                    if (recordLongBatch) {
+                        FlightRecorderEvents.longBatch(batchNanoTime, firstSequence, nextSequence - firstSequence, eventHandler);
+                    }
+                }
+
+                //等待策略可能提前返回小于期望的序号，此时序号不能回退
+                if (availableSequence >= nextSequence - 1L) {
+                    sequence.set(availableSequence);
+                    signalProgress();
+                }
+
+                if (tickHandler != null) {
+                    notifyTick();
+                }
             }
             catch (final TimeoutException e) {
                 notifyTimeout(sequence.get());
@@ -200,11 +405,52 @@ public final class BatchEventProcessor<T> implements EventProcessor {
             catch (final Throwable ex) {
                 exceptionHandler.handleEventException(ex, nextSequence, event);
                 sequence.set(nextSequence);
+                signalProgress();
                 nextSequence++;
             }
         }
     }
 
+    /**
+     * Rejoin the ring buffer after being detached, skipping every event up to the available sequence of the barrier.
+     * Only processors without upstream dependencies are detached, so that is the cursor and rejoining there never
+     * overtakes another stage.
+     *
+     * @param nextSequence the first sequence that has not been handled.
+     * @return the next sequence to handle.
+     * 被摘除后跳到序号栅栏的可用位置重新加入gatingSequences
+     */
+    private long resync(final long nextSequence) {
+        final RingBuffer<?> ringBuffer = detachedFrom;
+        // Positioned again once it is gating, so producers can not wrap past it.
+        ringBuffer.addGatingSequence(sequence, new Cursored() {
+            @Override
+            public long getCursor()
+            {
+                return sequenceBarrier.getCursor();
+            }
+        });
+        detachedFrom = null;
+
+        final long resyncSequence = sequence.get();
+        if (resyncAware != null && resyncSequence >= nextSequence) {
+            try {
+                resyncAware.onResync(nextSequence, resyncSequence);
+            }
+            catch (final Throwable ex) {
+                exceptionHandler.handleEventException(ex, resyncSequence, null);
+            }
+        }
+
+        return resyncSequence + 1;
+    }
+
+    private void signalProgress() {
+        if (progressAwareWaitStrategy != null) {
+            progressAwareWaitStrategy.signalProgressWhenBlocking(sequence);
+        }
+    }
+
     /**
      * 提早退出
      */
@@ -213,6 +459,23 @@ public final class BatchEventProcessor<T> implements EventProcessor {
         notifyShutdown();
     }
 
+    /**
+     * 每个批次检查一次tick，有新的tick则回调
+     */
+    private void notifyTick() {
+        final long tickCount = ticker.getTickCount();
+        if (tickCount != lastTickCount) {
+            lastTickCount = tickCount;
+            final long nanoTime = ticker.nanoTime();
+            try {
+                tickHandler.onTick(nanoTime);
+            }
+            catch (final Throwable e) {
+                exceptionHandler.handleEventException(e, sequence.get(), null);
+            }
+        }
+    }
+
     /**
      * 通知超时 生命周期事件
      * @param availableSequence 事件
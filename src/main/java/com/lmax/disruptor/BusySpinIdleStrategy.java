@@ -0,0 +1,44 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.ThreadHints;
+
+/**
+ * Idle strategy that busy spins, giving the lowest latency at the cost of a core per thread.  Best used when threads
+ * are pinned to dedicated cores, as with {@link BusySpinWaitStrategy}.
+ *
+ * 自旋的空闲策略
+ */
+public final class BusySpinIdleStrategy implements IdleStrategy {
+    @Override
+    public void idle(final int workCount) {
+        if (workCount > 0) {
+            return;
+        }
+
+        ThreadHints.onSpinWait();
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public String toString() {
+        return "BusySpinIdleStrategy{}";
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>Estimates how soon a {@link RingBuffer} will fill up and how long its backlog will take to drain, from
+ * exponentially weighted moving averages of the publish rate and of the drain rate of the slowest gating consumer,
+ * which is the one that bounds the remaining capacity.</p>
+ *
+ * <p>There is no background thread.  The rates are sampled by whichever thread publishes or reads an estimate once
+ * the sample interval has elapsed, the interval being measured with the coarse clock of a {@link Ticker}, so
+ * publishing only pays two volatile reads while the interval has not elapsed.  Created by
+ * {@link RingBuffer#enableCapacityForecast(long, long, TimeUnit)}.</p>
+ *
+ * 基于指数加权移动平均的容量预测
+ */
+public final class CapacityForecaster {
+    private final RingBuffer<?> ringBuffer;
+    private final Ticker ticker;
+    private final long sampleIntervalNanos;
+    private final double timeConstantNanos;
+    /**
+     * 同一时刻只有一个线程采样
+     */
+    private final AtomicBoolean sampling = new AtomicBoolean(false);
+    private volatile long lastSampleNanoTime;
+    private long lastCursor;
+    private long lastGatingSequence;
+    /**
+     * 每纳秒的事件数
+     */
+    private volatile double publishRate;
+    private volatile double drainRate;
+
+    CapacityForecaster(
+        final RingBuffer<?> ringBuffer,
+        final Ticker ticker,
+        final long sampleInterval,
+        final long timeConstant,
+        final TimeUnit units) {
+        this.sampleIntervalNanos = units.toNanos(sampleInterval);
+        if (sampleIntervalNanos < 1) {
+            throw new IllegalArgumentException("sampleInterval must be positive");
+        }
+        if (timeConstant < sampleInterval) {
+            throw new IllegalArgumentException("timeConstant must not be less than sampleInterval");
+        }
+
+        this.ringBuffer = ringBuffer;
+        this.ticker = ticker;
+        this.timeConstantNanos = units.toNanos(timeConstant);
+        this.lastCursor = ringBuffer.getCursor();
+        this.lastGatingSequence = ringBuffer.getMinimumGatingSequence();
+        ticker.start();
+        this.lastSampleNanoTime = ticker.nanoTime();
+    }
+
+    /**
+     * Called after every publication, samples the rates if the sample interval has elapsed.
+     */
+    void onPublish() {
+        if (ticker.nanoTime() - lastSampleNanoTime >= sampleIntervalNanos) {
+            trySample();
+        }
+    }
+
+    /**
+     * @return the {@link Ticker#nanoTime()} of the latest sample, reading it does not take a sample.
+     */
+    long getLastSampleNanoTime() {
+        return lastSampleNanoTime;
+    }
+
+    private void trySample() {
+        if (!sampling.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            final long now = ticker.nanoTime();
+            final long elapsed = now - lastSampleNanoTime;
+            if (elapsed < sampleIntervalNanos) {
+                return;
+            }
+
+            //先读消费者序号再读游标，保证积压不为负
+            final long gatingSequence = ringBuffer.getMinimumGatingSequence();
+            final long cursor = ringBuffer.getCursor();
+            final double alpha = 1.0 - Math.exp(-elapsed / timeConstantNanos);
+            publishRate += alpha * ((double) (cursor - lastCursor) / elapsed - publishRate);
+            drainRate += alpha * ((double) (gatingSequence - lastGatingSequence) / elapsed - drainRate);
+            lastCursor = cursor;
+            lastGatingSequence = gatingSequence;
+            lastSampleNanoTime = now;
+        }
+        finally {
+            sampling.set(false);
+        }
+    }
+
+    /**
+     * @return the average number of events published per second.
+     */
+    public double getPublishRate() {
+        onPublish();
+        return publishRate * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * @return the average number of events consumed per second by the slowest gating consumer.
+     */
+    public double getDrainRate() {
+        onPublish();
+        return drainRate * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Estimate how long until publishers would have to wait for a free slot, if the rates stay as they are.
+     *
+     * @return the estimated time in nanoseconds, <code>0</code> if the ring buffer is full, or
+     * {@link Long#MAX_VALUE} if consumers are keeping up with publishers.
+     */
+    public long getEstimatedTimeToFullNanos() {
+        onPublish();
+        final long remainingCapacity = ringBuffer.remainingCapacity();
+        if (remainingCapacity <= 0) {
+            return 0L;
+        }
+
+        final double fillRate = publishRate - drainRate;
+        return fillRate > 0.0 ? toNanos(remainingCapacity / fillRate) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Estimate how long the slowest gating consumer would take to catch up with the cursor at its current drain
+     * rate, were publishing to stop.
+     *
+     * @return the estimated time in nanoseconds, <code>0</code> if there is no backlog, or {@link Long#MAX_VALUE}
+     * if the backlog is not being drained.
+     */
+    public long getEstimatedDrainTimeNanos() {
+        onPublish();
+        final long gatingSequence = ringBuffer.getMinimumGatingSequence();
+        final long backlog = ringBuffer.getCursor() - gatingSequence;
+        if (backlog <= 0) {
+            return 0L;
+        }
+
+        final double rate = drainRate;
+        return rate > 0.0 ? toNanos(backlog / rate) : Long.MAX_VALUE;
+    }
+
+    private static long toNanos(final double nanos)
+    {
+        return nanos >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "CapacityForecaster{" +
+            "publishRate=" + getPublishRate() +
+            ", drainRate=" + getDrainRate() +
+            ", estimatedTimeToFullNanos=" + getEstimatedTimeToFullNanos() +
+            ", estimatedDrainTimeNanos=" + getEstimatedDrainTimeNanos() +
+            '}';
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.ThreadHints;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>Blocking strategy that coalesces the signals of publishers, trading a small bounded latency for much lower
+ * publisher overhead at high publish rates.</p>
+ *
+ * <p>A waiting consumer arms a flag before it blocks.  Publishers only look at that flag while it is clear, which is
+ * a single volatile read, and once it is set only every <code>publishesPerSignal</code>th publish actually takes the
+ * lock and signals, clearing the flag again.  Waiters never block for longer than <code>maxDelay</code> at a time, so
+ * an event that is not followed by enough further publishes is still seen within that delay.</p>
+ *
+ * <p>With <code>publishesPerSignal</code> of 1 this behaves like a lock based {@link LiteBlockingWaitStrategy}, with
+ * the added safety of a bounded wait.</p>
+ *
+ * 合并唤醒信号的阻塞等待策略
+ */
+public final class CoalescingBlockingWaitStrategy implements WaitStrategy {
+    private final Lock lock = new ReentrantLock();
+    private final Condition processorNotifyCondition = lock.newCondition();
+    private final AtomicBoolean signalNeeded = new AtomicBoolean(false);
+    private final AtomicInteger publishesSinceSignal = new AtomicInteger();
+    private final int publishesPerSignal;
+    private final long maxDelayNanos;
+
+    /**
+     * @param publishesPerSignal number of publishes to let through between signals while consumers are waiting.
+     * @param maxDelay           longest a waiting consumer may go without noticing a publish.
+     * @param units              of maxDelay.
+     */
+    public CoalescingBlockingWaitStrategy(final int publishesPerSignal, final long maxDelay, final TimeUnit units) {
+        if (publishesPerSignal < 1) {
+            throw new IllegalArgumentException("publishesPerSignal must not be less than 1");
+        }
+
+        this.publishesPerSignal = publishesPerSignal;
+        this.maxDelayNanos = units.toNanos(maxDelay);
+        if (maxDelayNanos < 1) {
+            throw new IllegalArgumentException("maxDelay must be positive");
+        }
+    }
+
+    @Override
+    public long waitFor(long sequence, Sequence cursorSequence, Sequence dependentSequence, SequenceBarrier barrier)
+        throws AlertException, InterruptedException {
+        long availableSequence;
+        if (cursorSequence.get() < sequence) {
+            lock.lock();
+            try {
+                while (cursorSequence.get() < sequence) {
+                    signalNeeded.set(true);
+                    if (cursorSequence.get() >= sequence) {
+                        break;
+                    }
+
+                    barrier.checkAlert();
+                    processorNotifyCondition.awaitNanos(maxDelayNanos);
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        while ((availableSequence = dependentSequence.get()) < sequence) {
+            barrier.checkAlert();
+            ThreadHints.onSpinWait();
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        if (!signalNeeded.get()) {
+            return;
+        }
+
+        if (publishesPerSignal > 1 && publishesSinceSignal.incrementAndGet() < publishesPerSignal) {
+            return;
+        }
+
+        if (signalNeeded.getAndSet(false)) {
+            publishesSinceSignal.set(0);
+            lock.lock();
+            try {
+                processorNotifyCondition.signalAll();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CoalescingBlockingWaitStrategy{" +
+            "publishesPerSignal=" + publishesPerSignal +
+            ", maxDelayNanos=" + maxDelayNanos +
+            ", signalNeeded=" + signalNeeded +
+            '}';
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.Arrays;
+
+/**
+ * <p>An {@link EventHandler} that conflates each batch of events by key, passing only the newest event for each key
+ * on to the wrapped handler.  Useful when only the latest state per key matters, for example the latest quote per
+ * instrument, and a slow downstream consumer should not have to work through every intermediate update.</p>
+ *
+ * <p>Events are collected as the batch is delivered and flushed when <code>endOfBatch</code> is seen, in order of
+ * their sequence, with <code>endOfBatch</code> set on the last one.  This relies on the {@link BatchEventProcessor}
+ * only advancing its sequence once the whole batch has been handled, so the collected events are still in place in
+ * the ring buffer when they are flushed.  Do not wrap a {@link SequenceReportingEventHandler}.</p>
+ *
+ * <p>Keys are tracked in a primitive open addressing table, so no allocation takes place on the event path once the
+ * table has grown to the number of distinct keys seen in a batch.</p>
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ *
+ * 按key合并同一批次内的事件，只把每个key最新的事件交给下游handler
+ */
+public final class ConflatingEventHandler<T>
+    implements EventHandler<T>, LifecycleAware
+{
+    /**
+     * Resolves the key that events are conflated by.
+     *
+     * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+     */
+    public interface KeyResolver<T>
+    {
+        /**
+         * @param event to resolve the key of.
+         * @return the key identifying which events supersede each other.
+         */
+        long keyFor(T event);
+    }
+
+    private static final long UNUSED = -1L;
+
+    private final KeyResolver<? super T> keyResolver;
+    private final EventHandler<? super T> eventHandler;
+
+    /**
+     * 开放寻址表：key、所在批次、在pending中的位置
+     */
+    private long[] keys;
+    private long[] keyBatches;
+    private int[] keyPositions;
+    private int mask;
+    private int keyCount;
+    private long batch = 0;
+
+    /**
+     * 按到达顺序排列的待交付事件，被覆盖的位置sequence为UNUSED
+     */
+    private Object[] pendingEvents;
+    private long[] pendingSequences;
+    private int pendingCount;
+
+    private long conflatedCount;
+
+    /**
+     * Construct a conflating handler sized for 16 distinct keys per batch, it will grow if more are seen.
+     *
+     * @param keyResolver  to resolve the key of each event.
+     * @param eventHandler to receive the newest event for each key.
+     */
+    public ConflatingEventHandler(final KeyResolver<? super T> keyResolver, final EventHandler<? super T> eventHandler)
+    {
+        this(keyResolver, eventHandler, 16);
+    }
+
+    /**
+     * Construct a conflating handler.
+     *
+     * @param keyResolver  to resolve the key of each event.
+     * @param eventHandler to receive the newest event for each key.
+     * @param expectedKeys number of distinct keys expected in a batch, the tables grow if more are seen.
+     */
+    public ConflatingEventHandler(
+        final KeyResolver<? super T> keyResolver,
+        final EventHandler<? super T> eventHandler,
+        final int expectedKeys)
+    {
+        if (expectedKeys < 1)
+        {
+            throw new IllegalArgumentException("expectedKeys must not be less than 1");
+        }
+
+        this.keyResolver = keyResolver;
+        this.eventHandler = eventHandler;
+        allocateKeys(tableSizeFor(expectedKeys));
+        pendingEvents = new Object[expectedKeys];
+        pendingSequences = new long[expectedKeys];
+    }
+
+    @Override
+    public void onEvent(final T event, final long sequence, final boolean endOfBatch) throws Exception
+    {
+        final long key = keyResolver.keyFor(event);
+        final int index = indexOf(key);
+        if (keyBatches[index] == batch)
+        {
+            // Superseded, drop the older event from its place in the arrival order.
+            pendingSequences[keyPositions[index]] = UNUSED;
+            keyPositions[index] = append(event, sequence);
+            conflatedCount++;
+        }
+        else
+        {
+            keys[index] = key;
+            keyBatches[index] = batch;
+            keyPositions[index] = append(event, sequence);
+            if (++keyCount > (keys.length >> 1))
+            {
+                rehash(keys.length << 1);
+            }
+        }
+
+        if (endOfBatch)
+        {
+            flush();
+        }
+    }
+
+    /**
+     * @return the number of events that were superseded by a newer event with the same key and never delivered.
+     */
+    public long getConflatedCount()
+    {
+        return conflatedCount;
+    }
+
+    @Override
+    public void onStart()
+    {
+        if (eventHandler instanceof LifecycleAware)
+        {
+            ((LifecycleAware) eventHandler).onStart();
+        }
+    }
+
+    @Override
+    public void onShutdown()
+    {
+        if (eventHandler instanceof LifecycleAware)
+        {
+            ((LifecycleAware) eventHandler).onShutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void flush() throws Exception
+    {
+        try
+        {
+            int last = pendingCount - 1;
+            while (last >= 0 && pendingSequences[last] == UNUSED)
+            {
+                last--;
+            }
+
+            for (int i = 0; i <= last; i++)
+            {
+                final long sequence = pendingSequences[i];
+                if (sequence != UNUSED)
+                {
+                    eventHandler.onEvent((T) pendingEvents[i], sequence, i == last);
+                }
+            }
+        }
+        finally
+        {
+            Arrays.fill(pendingEvents, 0, pendingCount, null);
+            pendingCount = 0;
+            keyCount = 0;
+            batch++;
+        }
+    }
+
+    private int append(final T event, final long sequence)
+    {
+        if (pendingCount == pendingSequences.length)
+        {
+            compactOrGrowPending();
+        }
+
+        final int position = pendingCount++;
+        pendingEvents[position] = event;
+        pendingSequences[position] = sequence;
+        return position;
+    }
+
+    private void compactOrGrowPending()
+    {
+        if (keyCount < (pendingSequences.length >> 1))
+        {
+            int live = 0;
+            for (int i = 0; i < pendingCount; i++)
+            {
+                if (pendingSequences[i] != UNUSED)
+                {
+                    pendingEvents[live] = pendingEvents[i];
+                    pendingSequences[live] = pendingSequences[i];
+                    live++;
+                }
+            }
+            Arrays.fill(pendingEvents, live, pendingCount, null);
+            pendingCount = live;
+            rebuildPositions();
+        }
+        else
+        {
+            pendingEvents = Arrays.copyOf(pendingEvents, pendingEvents.length << 1);
+            pendingSequences = Arrays.copyOf(pendingSequences, pendingSequences.length << 1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rebuildPositions()
+    {
+        for (int i = 0; i < pendingCount; i++)
+        {
+            keyPositions[indexOf(keyResolver.keyFor((T) pendingEvents[i]))] = i;
+        }
+    }
+
+    private int indexOf(final long key)
+    {
+        int index = hash(key) & mask;
+        while (keyBatches[index] == batch && keys[index] != key)
+        {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash(final int newSize)
+    {
+        final long[] oldKeys = keys;
+        final long[] oldKeyBatches = keyBatches;
+        final int[] oldKeyPositions = keyPositions;
+
+        allocateKeys(newSize);
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeyBatches[i] == batch)
+            {
+                final int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                keyBatches[index] = batch;
+                keyPositions[index] = oldKeyPositions[i];
+            }
+        }
+    }
+
+    private void allocateKeys(final int size)
+    {
+        keys = new long[size];
+        keyBatches = new long[size];
+        keyPositions = new int[size];
+        Arrays.fill(keyBatches, UNUSED);
+        mask = size - 1;
+    }
+
+    private static int hash(final long key)
+    {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(final int expectedKeys)
+    {
+        return Integer.highestOneBit(expectedKeys * 4 - 1);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConflatingEventHandler{" +
+            "eventHandler=" + eventHandler +
+            ", conflatedCount=" + conflatedCount +
+            '}';
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Protects producers from a consumer that has stopped keeping up.  When a watched {@link BatchEventProcessor} falls
+ * more than a given number of slots behind the cursor, or has not caught up with a cursor position observed more than
+ * a given time ago, its sequence is removed from the gating sequences of the {@link RingBuffer} and the processor is
+ * flagged as detached.  Producers then no longer wait for it.</p>
+ *
+ * <p>A detached processor notices the flag before its next batch, skips straight to the available sequence of its
+ * barrier and rejoins the gating sequences.  If its handler implements {@link ResyncAware} it is told which sequences
+ * were skipped, so that it can catch up from a journal instead of simply dropping them.  The batch it was handling
+ * when detached is finished, and its later events may already have been overwritten.</p>
+ *
+ * <p>The monitor does not own a thread, {@link #check()} (or {@link #run()}) should be called periodically, for
+ * example from a {@link java.util.concurrent.ScheduledExecutorService}.  Only processors that depend on nothing but
+ * the cursor can be watched: the sequence of a processor with upstream dependencies is what stops producers wrapping
+ * over events the upstream stages have not handled yet, so it must never be removed.</p>
+ *
+ * 监控消费者的落后程度，落后过多时将其从gatingSequences中摘除，保护生产者
+ */
+public final class ConsumerLagMonitor implements Runnable {
+    /**
+     * Callback notified when a consumer is detached.
+     */
+    public interface DetachListener {
+        /**
+         * Called on the thread running the monitor, just after the processor was removed from gating.
+         *
+         * @param processor that was detached.
+         * @param lag       number of slots it was behind the cursor.
+         */
+        void onDetached(BatchEventProcessor<?> processor, long lag);
+    }
+
+    private static final Watched[] NO_WATCHED = new Watched[0];
+
+    private final RingBuffer<?> ringBuffer;
+    private final long maxLagSlots;
+    private final long maxLagNanos;
+    private final DetachListener listener;
+    private final AtomicLong detachCount = new AtomicLong();
+    private volatile Watched[] watched = NO_WATCHED;
+
+    /**
+     * Create a lag monitor.
+     *
+     * @param ringBuffer  that the watched processors consume from.
+     * @param maxLagSlots number of slots a processor may fall behind the cursor before it is detached.
+     * @param maxLagTime  time a processor may take to reach a cursor position before it is detached.
+     * @param units       of maxLagTime.
+     * @param listener    to notify of detachments, may be <code>null</code>.
+     */
+    public ConsumerLagMonitor(
+        final RingBuffer<?> ringBuffer,
+        final long maxLagSlots,
+        final long maxLagTime,
+        final TimeUnit units,
+        final DetachListener listener) {
+        if (maxLagSlots < 1) {
+            throw new IllegalArgumentException("maxLagSlots must not be less than 1");
+        }
+        if (maxLagTime < 1) {
+            throw new IllegalArgumentException("maxLagTime must not be less than 1");
+        }
+
+        this.ringBuffer = ringBuffer;
+        this.maxLagSlots = maxLagSlots;
+        this.maxLagNanos = units.toNanos(maxLagTime);
+        this.listener = listener;
+    }
+
+    /**
+     * Watch a processor whose sequence gates the ring buffer.
+     *
+     * @param processor to watch.
+     * @throws IllegalArgumentException if the processor has upstream dependencies, see {@link #isDetachable}.
+     */
+    public synchronized void watch(final BatchEventProcessor<?> processor) {
+        if (!isDetachable(processor)) {
+            throw new IllegalArgumentException("Only processors without upstream dependencies can be detached");
+        }
+
+        final Watched[] current = watched;
+        final Watched[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = new Watched(processor, ringBuffer.getCursor(), System.nanoTime());
+        watched = updated;
+    }
+
+    /**
+     * @param processor to check.
+     * @return true if the barrier of the processor depends on nothing but the cursor, so that it can be detached.
+     */
+    public static boolean isDetachable(final BatchEventProcessor<?> processor)
+    {
+        return !processor.hasUpstreamDependencies();
+    }
+
+    /**
+     * Check every watched processor, detaching those that have fallen too far behind.
+     */
+    public synchronized void check() {
+        final long cursor = ringBuffer.getCursor();
+        final long now = System.nanoTime();
+
+        for (final Watched entry : watched) {
+            final BatchEventProcessor<?> processor = entry.processor;
+            if (processor.isDetached()) {
+                // Not yet rejoined, start timing afresh once it has.
+                entry.observe(cursor, now);
+                continue;
+            }
+
+            final long position = processor.getSequence().get();
+            if (position >= entry.observedCursor) {
+                entry.observe(cursor, now);
+            }
+
+            final long lag = cursor - position;
+            if (lag > maxLagSlots || (lag > 0 && now - entry.observedAt > maxLagNanos)) {
+                detach(processor, lag);
+                entry.observe(cursor, now);
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #check()}, so the monitor can be scheduled directly.
+     */
+    @Override
+    public void run() {
+        check();
+    }
+
+    /**
+     * @return the number of times a watched processor has been detached.
+     */
+    public long getDetachCount() {
+        return detachCount.get();
+    }
+
+    private void detach(final BatchEventProcessor<?> processor, final long lag) {
+        // Remove before flagging, so that a processor rejoining straight away can not be removed again after it.
+        if (!ringBuffer.removeGatingSequence(processor.getSequence())) {
+            return;
+        }
+        processor.detach(ringBuffer);
+        detachCount.incrementAndGet();
+
+        if (listener != null) {
+            listener.onDetached(processor, lag);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConsumerLagMonitor{" +
+            "maxLagSlots=" + maxLagSlots +
+            ", maxLagNanos=" + maxLagNanos +
+            ", watched=" + watched.length +
+            ", detachCount=" + detachCount +
+            '}';
+    }
+
+    private static final class Watched {
+        private final BatchEventProcessor<?> processor;
+        private long observedCursor;
+        private long observedAt;
+
+        Watched(final BatchEventProcessor<?> processor, final long observedCursor, final long observedAt) {
+            this.processor = processor;
+            this.observedCursor = observedCursor;
+            this.observedAt = observedAt;
+        }
+
+        void observe(final long cursor, final long now) {
+            observedCursor = cursor;
+            observedAt = now;
+        }
+    }
+}
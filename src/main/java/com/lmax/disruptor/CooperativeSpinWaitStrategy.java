@@ -0,0 +1,140 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.ThreadHints;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Busy spin wait strategy for many disruptors sharing a few cores.  A consumer only busy spins while it holds a
+ * token from a {@link SpinTokenPool}, otherwise it waits with a blocking fallback strategy and is woken by the
+ * publishers.</p>
+ *
+ * <p>A token is taken at the start of a wait and always given back when the wait returns, whether an event arrived,
+ * the barrier was alerted or the wait failed, so a processor that halts or dies never keeps one.  A token holder that
+ * has spun for the idle time without an event arriving gives its token back and blocks, and does so after a quarter
+ * of that time when other consumers are waiting for a token.  Busy consumers wait briefly and often, so they keep
+ * busy spin latency without every consumer needing a core of its own.</p>
+ *
+ * 多个消费者共享自旋令牌的等待策略
+ */
+public final class CooperativeSpinWaitStrategy implements WaitStrategy {
+    private static final int SPIN_TRIES = 1000;
+
+    private final SpinTokenPool pool;
+    private final WaitStrategy fallbackStrategy;
+    private final long idleSpinNanos;
+
+    /**
+     * Share the JVM wide {@link SpinTokenPool}, giving tokens back after 1ms without an event and falling back to a
+     * {@link ParkingWaitStrategy}.
+     */
+    public CooperativeSpinWaitStrategy() {
+        this(SpinTokenPool.shared(), new ParkingWaitStrategy(), 1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param pool             of spin tokens to share.
+     * @param fallbackStrategy to wait with when not holding a token, it must be woken by signalAllWhenBlocking.
+     * @param idleSpinTime     time a token holder spins without an event before giving its token back.
+     * @param units            of idleSpinTime.
+     */
+    public CooperativeSpinWaitStrategy(
+        final SpinTokenPool pool,
+        final WaitStrategy fallbackStrategy,
+        final long idleSpinTime,
+        final TimeUnit units) {
+        this.pool = pool;
+        this.fallbackStrategy = fallbackStrategy;
+        this.idleSpinNanos = units.toNanos(idleSpinTime);
+    }
+
+    @Override
+    public long waitFor(long sequence, Sequence cursor, Sequence dependentSequence, SequenceBarrier barrier)
+        throws AlertException, InterruptedException, TimeoutException {
+        long availableSequence;
+        if ((availableSequence = dependentSequence.get()) >= sequence) {
+            return availableSequence;
+        }
+
+        if (pool.tryAcquire()) {
+            //令牌只在本次等待内持有，处理器停止或异常退出时不会带走令牌
+            try {
+                availableSequence = spinFor(sequence, dependentSequence, barrier);
+            }
+            finally {
+                pool.release();
+            }
+
+            if (availableSequence >= sequence) {
+                return availableSequence;
+            }
+            return fallbackStrategy.waitFor(sequence, cursor, dependentSequence, barrier);
+        }
+
+        pool.addDemand();
+        try {
+            return fallbackStrategy.waitFor(sequence, cursor, dependentSequence, barrier);
+        }
+        finally {
+            pool.removeDemand();
+        }
+    }
+
+    /**
+     * Spin while holding a token, until the sequence is available or the idle time has passed.
+     *
+     * @return the available sequence, lower than the one asked for if the idle time passed first.
+     */
+    private long spinFor(final long sequence, final Sequence dependentSequence, final SequenceBarrier barrier)
+        throws AlertException {
+        long availableSequence;
+        long startTime = 0;
+        int counter = SPIN_TRIES;
+        while ((availableSequence = dependentSequence.get()) < sequence) {
+            barrier.checkAlert();
+            ThreadHints.onSpinWait();
+
+            if (--counter == 0) {
+                counter = SPIN_TRIES;
+                final long now = System.nanoTime();
+                if (startTime == 0) {
+                    startTime = now;
+                }
+                else if (now - startTime > (pool.hasDemand() ? idleSpinNanos >> 2 : idleSpinNanos)) {
+                    break;
+                }
+            }
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        fallbackStrategy.signalAllWhenBlocking();
+    }
+
+    @Override
+    public String toString() {
+        return "CooperativeSpinWaitStrategy{" +
+            "pool=" + pool +
+            ", fallbackStrategy=" + fallbackStrategy +
+            ", idleSpinNanos=" + idleSpinNanos +
+            '}';
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Blocking strategy that gives every barrier its own wait point, so that a publish wakes only the stages that
+ * read directly from the cursor, and an event processor advancing its sequence wakes only the stages gated on it.
+ * This avoids waking every blocked stage of a deep pipeline on each publish only for most of them to find that the
+ * stage they depend on has not moved.</p>
+ *
+ * <p>Waiters block on their dependent sequence itself rather than on the cursor, parking on a lock free stack as
+ * with {@link ParkingWaitStrategy}.  {@link BatchEventProcessor}s and {@link WorkProcessor}s signal their progress
+ * automatically.  Other event processors do not, so stages gated on them rely on the park timeout to notice
+ * progress, 1ms by default.</p>
+ *
+ * 按依赖关系唤醒的阻塞等待策略，每个序号栅栏有自己的等待点
+ */
+public final class DependencyAwareBlockingWaitStrategy implements ProgressAwareWaitStrategy {
+    private static final ParkingWaitStrategy[] NO_WAIT_POINTS = new ParkingWaitStrategy[0];
+
+    private final long maxParkNanos;
+    /**
+     * 以dependentSequence为key的等待点
+     */
+    private volatile Map<Sequence, ParkingWaitStrategy> waitPointsByKey = new IdentityHashMap<>();
+    /**
+     * 被推进的序号 -> 依赖它的等待点
+     */
+    private volatile Map<Sequence, ParkingWaitStrategy[]> waitPointsByDependency = new IdentityHashMap<>();
+    /**
+     * 直接依赖cursor的等待点，由生产者唤醒
+     */
+    private volatile ParkingWaitStrategy[] cursorWaitPoints = NO_WAIT_POINTS;
+    /**
+     * 无法分解依赖关系的等待点，任何进度都会唤醒
+     */
+    private volatile ParkingWaitStrategy[] opaqueWaitPoints = NO_WAIT_POINTS;
+
+    public DependencyAwareBlockingWaitStrategy() {
+        this(1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param maxParkTime longest a waiter parks before re-checking its dependent sequence without being signalled.
+     * @param units       of maxParkTime.
+     */
+    public DependencyAwareBlockingWaitStrategy(final long maxParkTime, final TimeUnit units) {
+        maxParkNanos = units.toNanos(maxParkTime);
+        if (maxParkNanos < 1) {
+            throw new IllegalArgumentException("maxParkTime must be positive");
+        }
+    }
+
+    @Override
+    public long waitFor(long sequence, Sequence cursorSequence, Sequence dependentSequence, SequenceBarrier barrier)
+        throws AlertException, InterruptedException, TimeoutException {
+        final long availableSequence = dependentSequence.get();
+        if (availableSequence >= sequence) {
+            return availableSequence;
+        }
+
+        ParkingWaitStrategy waitPoint = waitPointsByKey.get(dependentSequence);
+        if (null == waitPoint) {
+            waitPoint = register(cursorSequence, dependentSequence);
+        }
+
+        return waitPoint.waitFor(sequence, dependentSequence, dependentSequence, barrier);
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        signal(cursorWaitPoints);
+        signal(opaqueWaitPoints);
+    }
+
+    @Override
+    public void signalProgressWhenBlocking(final Sequence sequence) {
+        final ParkingWaitStrategy[] waitPoints = waitPointsByDependency.get(sequence);
+        if (null != waitPoints) {
+            signal(waitPoints);
+        }
+        signal(opaqueWaitPoints);
+    }
+
+    private static void signal(final ParkingWaitStrategy[] waitPoints) {
+        for (final ParkingWaitStrategy waitPoint : waitPoints) {
+            waitPoint.signalAllWhenBlocking();
+        }
+    }
+
+    private synchronized ParkingWaitStrategy register(final Sequence cursorSequence, final Sequence dependentSequence) {
+        ParkingWaitStrategy waitPoint = waitPointsByKey.get(dependentSequence);
+        if (null != waitPoint) {
+            return waitPoint;
+        }
+
+        waitPoint = new ParkingWaitStrategy(maxParkNanos, TimeUnit.NANOSECONDS);
+
+        // Copy on write, registration only happens once per barrier.
+        final Map<Sequence, ParkingWaitStrategy[]> byDependency = new IdentityHashMap<>(waitPointsByDependency);
+        addDependency(byDependency, dependentSequence, waitPoint);
+        if (dependentSequence == cursorSequence) {
+            cursorWaitPoints = append(cursorWaitPoints, waitPoint);
+        }
+        else if (dependentSequence instanceof FixedSequenceGroup) {
+            for (final Sequence member : ((FixedSequenceGroup) dependentSequence).getSequences()) {
+                addDependency(byDependency, member, waitPoint);
+            }
+        }
+        else if (dependentSequence instanceof SequenceGroup) {
+            opaqueWaitPoints = append(opaqueWaitPoints, waitPoint);
+        }
+        waitPointsByDependency = byDependency;
+
+        final Map<Sequence, ParkingWaitStrategy> byKey = new IdentityHashMap<>(waitPointsByKey);
+        byKey.put(dependentSequence, waitPoint);
+        waitPointsByKey = byKey;
+
+        return waitPoint;
+    }
+
+    private static void addDependency(
+        final Map<Sequence, ParkingWaitStrategy[]> byDependency, final Sequence sequence, final ParkingWaitStrategy waitPoint) {
+        final ParkingWaitStrategy[] waitPoints = byDependency.get(sequence);
+        byDependency.put(sequence, append(null == waitPoints ? NO_WAIT_POINTS : waitPoints, waitPoint));
+    }
+
+    private static ParkingWaitStrategy[] append(final ParkingWaitStrategy[] waitPoints, final ParkingWaitStrategy waitPoint) {
+        final ParkingWaitStrategy[] updated = Arrays.copyOf(waitPoints, waitPoints.length + 1);
+        updated[waitPoints.length] = waitPoint;
+        return updated;
+    }
+
+    @Override
+    public String toString() {
+        return "DependencyAwareBlockingWaitStrategy{" +
+            "maxParkNanos=" + maxParkNanos +
+            ", waitPoints=" + waitPointsByKey.size() +
+            '}';
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * An {@link EventProcessor} that can also be driven cooperatively, one non-blocking duty cycle at a time, so that
+ * many processors can share a small number of threads.  See {@link DutyCycleScheduler}.
+ * <p>
+ * A thread driving the processor must call {@link #onStart()} once, then {@link #doWork()} repeatedly until it throws
+ * an {@link AlertException}, and finally {@link #onShutdown()}.  {@link #run()} does exactly that on a dedicated
+ * thread.
+ *
+ * 可协作调度的事件处理器
+ */
+public interface DutyCycleEventProcessor extends EventProcessor {
+    /**
+     * Prepare to process events on the calling thread, notifying the handler if it is {@link LifecycleAware}.
+     *
+     * @throws IllegalStateException if this processor is already running.
+     */
+    void onStart();
+
+    /**
+     * Process the events that are currently available, without blocking.
+     *
+     * @return the number of events processed, 0 if none were available.
+     * @throws AlertException if the processor has been halted and should not be driven any further.
+     */
+    int doWork() throws AlertException;
+
+    /**
+     * Finish processing on the calling thread, notifying the handler if it is {@link LifecycleAware}.  After this
+     * returns {@link #isRunning()} is false and the processor may be started again.
+     */
+    void onShutdown();
+}
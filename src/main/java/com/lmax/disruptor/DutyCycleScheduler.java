@@ -0,0 +1,229 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>An {@link Executor} that multiplexes {@link DutyCycleEventProcessor}s onto a small, fixed number of threads
+ * rather than dedicating a thread to each of them.  Each thread runs the processors assigned to it round-robin,
+ * one non-blocking duty cycle at a time, and uses its own {@link IdleStrategy} when a whole round found no work.</p>
+ *
+ * <p>This suits JVMs hosting many mostly quiet disruptors, where one thread per processor means a large number of
+ * idle threads and a lot of context switching.  Processors are assigned to threads round-robin when they are
+ * executed.  Any other {@link Runnable}, such as the processors of a {@link WorkerPool}, still gets a thread of its
+ * own from the {@link ThreadFactory}.</p>
+ *
+ * <p>A processor whose exception handler propagates an exception is stopped, and the exception is passed to the
+ * {@link Thread.UncaughtExceptionHandler} of the shared thread, as it would be if the processor had a thread of its
+ * own.  The shared thread keeps running the other processors.</p>
+ *
+ * <pre><code>DutyCycleScheduler scheduler = new DutyCycleScheduler(DaemonThreadFactory.INSTANCE, 2);
+ * Disruptor&lt;MyEvent&gt; disruptor = new Disruptor&lt;MyEvent&gt;(MyEvent.FACTORY, 1024, scheduler, ProducerType.SINGLE, new SleepingWaitStrategy());</code></pre>
+ *
+ * 多个消费者共享少量线程的调度器
+ */
+public final class DutyCycleScheduler implements Executor {
+    private final ThreadFactory threadFactory;
+    private final DutyCycleThread[] dutyCycleThreads;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicInteger nextThread = new AtomicInteger(0);
+
+    /**
+     * Create a scheduler with <code>threadCount</code> threads, each backing off with a default
+     * {@link BackoffIdleStrategy}.
+     *
+     * @param threadFactory to create the scheduler threads and any dedicated threads with.
+     * @param threadCount   number of threads to multiplex processors onto.
+     */
+    public DutyCycleScheduler(final ThreadFactory threadFactory, final int threadCount) {
+        this(threadFactory, defaultIdleStrategies(threadCount));
+    }
+
+    /**
+     * Create a scheduler with one thread per supplied idle strategy.
+     *
+     * @param threadFactory  to create the scheduler threads and any dedicated threads with.
+     * @param idleStrategies one for each thread, they must all be distinct instances.
+     */
+    public DutyCycleScheduler(final ThreadFactory threadFactory, final IdleStrategy... idleStrategies) {
+        if (idleStrategies.length < 1) {
+            throw new IllegalArgumentException("At least one thread is required");
+        }
+
+        this.threadFactory = threadFactory;
+        this.dutyCycleThreads = new DutyCycleThread[idleStrategies.length];
+        for (int i = 0; i < idleStrategies.length; i++) {
+            dutyCycleThreads[i] = new DutyCycleThread(idleStrategies[i]);
+        }
+    }
+
+    /**
+     * Schedule a {@link DutyCycleEventProcessor} onto one of the shared threads, or run any other command on a
+     * dedicated thread.  The shared threads are started on first use.
+     *
+     * @param command to run.
+     */
+    @Override
+    public void execute(final Runnable command) {
+        if (command instanceof DutyCycleEventProcessor) {
+            startThreads();
+            final int index = (nextThread.getAndIncrement() & Integer.MAX_VALUE) % dutyCycleThreads.length;
+            dutyCycleThreads[index].schedule((DutyCycleEventProcessor) command);
+        }
+        else {
+            newThread(command).start();
+        }
+    }
+
+    /**
+     * Stop the shared threads once the processors currently assigned to them have been halted.  Processors still
+     * running are halted first.
+     */
+    public void shutdown() {
+        for (final DutyCycleThread dutyCycleThread : dutyCycleThreads) {
+            dutyCycleThread.shutdown();
+        }
+    }
+
+    /**
+     * @return the number of threads shared by duty cycle processors.
+     */
+    public int getThreadCount()
+    {
+        return dutyCycleThreads.length;
+    }
+
+    private void startThreads() {
+        if (started.compareAndSet(false, true)) {
+            for (final DutyCycleThread dutyCycleThread : dutyCycleThreads) {
+                newThread(dutyCycleThread).start();
+            }
+        }
+    }
+
+    private Thread newThread(final Runnable runnable) {
+        final Thread thread = threadFactory.newThread(runnable);
+        if (null == thread) {
+            throw new RuntimeException("Failed to create thread to run: " + runnable);
+        }
+        return thread;
+    }
+
+    private static IdleStrategy[] defaultIdleStrategies(final int threadCount) {
+        final IdleStrategy[] idleStrategies = new IdleStrategy[Math.max(threadCount, 0)];
+        for (int i = 0; i < idleStrategies.length; i++) {
+            idleStrategies[i] = new BackoffIdleStrategy();
+        }
+        return idleStrategies;
+    }
+
+    @Override
+    public String toString() {
+        return "DutyCycleScheduler{" +
+            "threadCount=" + dutyCycleThreads.length +
+            ", started=" + started +
+            '}';
+    }
+
+    private static final class DutyCycleThread implements Runnable {
+        private final IdleStrategy idleStrategy;
+        private final Queue<DutyCycleEventProcessor> pending = new ConcurrentLinkedQueue<>();
+        private final List<DutyCycleEventProcessor> processors = new ArrayList<>();
+        private volatile boolean running = true;
+
+        DutyCycleThread(final IdleStrategy idleStrategy)
+        {
+            this.idleStrategy = idleStrategy;
+        }
+
+        void schedule(final DutyCycleEventProcessor processor)
+        {
+            pending.add(processor);
+        }
+
+        void shutdown()
+        {
+            running = false;
+        }
+
+        @Override
+        public void run() {
+            while (running || !processors.isEmpty() || !pending.isEmpty()) {
+                if (!pending.isEmpty()) {
+                    startPending();
+                }
+
+                int workCount = 0;
+                for (int i = processors.size() - 1; i >= 0; i--) {
+                    final DutyCycleEventProcessor processor = processors.get(i);
+                    if (!running) {
+                        processor.halt();
+                    }
+
+                    try {
+                        workCount += processor.doWork();
+                    }
+                    catch (final AlertException ex) {
+                        stop(i, processor);
+                    }
+                    catch (final Throwable ex) {
+                        // The processor's exception handler chose to propagate, which would end a dedicated thread.
+                        stop(i, processor);
+                        reportUncaught(ex);
+                    }
+                }
+
+                idleStrategy.idle(workCount);
+            }
+        }
+
+        private void startPending() {
+            DutyCycleEventProcessor processor;
+            while (null != (processor = pending.poll())) {
+                try {
+                    processor.onStart();
+                    processors.add(processor);
+                }
+                catch (final IllegalStateException ex) {
+                    // Already running elsewhere, leave it alone.
+                }
+            }
+        }
+
+        private static void reportUncaught(final Throwable ex) {
+            final Thread thread = Thread.currentThread();
+            try {
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+            }
+            catch (final Throwable ignore) {
+                // Must not stop the other processors sharing this thread.
+            }
+        }
+
+        private void stop(final int index, final DutyCycleEventProcessor processor) {
+            processors.remove(index);
+            processor.onShutdown();
+        }
+    }
+}
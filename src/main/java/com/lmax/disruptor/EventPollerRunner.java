@@ -0,0 +1,164 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Drives one or more {@link EventPoller}s on a single thread, backing off with an {@link IdleStrategy} whenever a
+ * pass over all of them found no events, so that poll mode consumers do not each need a hand written back off
+ * loop.</p>
+ *
+ * <pre><code>EventPollerRunner runner = new EventPollerRunner(new BackoffIdleStrategy());
+ * runner.add(ringBuffer.newPoller(), handler);
+ * executor.execute(runner);</code></pre>
+ *
+ * <p>An exception thrown by a handler is passed to the {@link ExceptionHandler}, the default of which halts the
+ * runner by rethrowing it.  If the exception handler returns instead, the event that failed is skipped and the poller
+ * resumes from the one after it.</p>
+ *
+ * 使用空闲策略驱动多个EventPoller
+ */
+public final class EventPollerRunner implements Runnable {
+    private static final int IDLE = 0;
+    private static final int HALTED = IDLE + 1;
+    private static final int RUNNING = HALTED + 1;
+
+    private final AtomicInteger running = new AtomicInteger(IDLE);
+    private final IdleStrategy idleStrategy;
+    private ExceptionHandler<Object> exceptionHandler = new FatalExceptionHandler();
+    private volatile PollerEntry<?>[] entries = new PollerEntry<?>[0];
+
+    /**
+     * @param idleStrategy to back off with when no poller has events, it must not be shared with other threads.
+     */
+    public EventPollerRunner(final IdleStrategy idleStrategy) {
+        this.idleStrategy = idleStrategy;
+    }
+
+    /**
+     * Add a poller to be polled on every pass, it may be added while the runner is running.
+     *
+     * @param poller  to poll.
+     * @param handler to pass the polled events to.
+     * @param <T>     the type of event polled.
+     * @return this runner.
+     */
+    public synchronized <T> EventPollerRunner add(final EventPoller<T> poller, final EventPoller.Handler<T> handler) {
+        final PollerEntry<?>[] current = entries;
+        final PollerEntry<?>[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = new PollerEntry<>(poller, handler);
+        entries = updated;
+        return this;
+    }
+
+    /**
+     * Set a new {@link ExceptionHandler} for exceptions thrown by the handlers.
+     *
+     * @param exceptionHandler to replace the existing exceptionHandler.
+     */
+    public void setExceptionHandler(final ExceptionHandler<Object> exceptionHandler) {
+        if (null == exceptionHandler) {
+            throw new NullPointerException();
+        }
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    /**
+     * Poll every poller once.
+     *
+     * @return the number of pollers that processed events.
+     */
+    public int doWork() {
+        int workCount = 0;
+        for (final PollerEntry<?> entry : entries) {
+            try {
+                if (entry.poll() == EventPoller.PollState.PROCESSING) {
+                    workCount++;
+                }
+            }
+            catch (final Throwable ex) {
+                final long failed = entry.poller.getSequence().get() + 1;
+                exceptionHandler.handleEventException(ex, failed, null);
+                // 跳过失败的事件，避免反复重试同一个事件
+                entry.poller.getSequence().set(failed);
+                workCount++;
+            }
+        }
+        return workCount;
+    }
+
+    /**
+     * Stop the runner after its current pass.
+     */
+    public void halt() {
+        running.set(HALTED);
+    }
+
+    public boolean isRunning() {
+        return running.get() != IDLE;
+    }
+
+    /**
+     * Poll until halted.
+     *
+     * @throws IllegalStateException if this runner is already running.
+     */
+    @Override
+    public void run() {
+        if (!running.compareAndSet(IDLE, RUNNING)) {
+            if (running.get() == RUNNING) {
+                throw new IllegalStateException("Thread is already running");
+            }
+            // Halted before it started.
+            running.set(IDLE);
+            return;
+        }
+
+        try {
+            idleStrategy.reset();
+            while (running.get() == RUNNING) {
+                idleStrategy.idle(doWork());
+            }
+        }
+        finally {
+            running.set(IDLE);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EventPollerRunner{" +
+            "idleStrategy=" + idleStrategy +
+            ", pollers=" + entries.length +
+            '}';
+    }
+
+    private static final class PollerEntry<T> {
+        private final EventPoller<T> poller;
+        private final EventPoller.Handler<T> handler;
+
+        PollerEntry(final EventPoller<T> poller, final EventPoller.Handler<T> handler) {
+            this.poller = poller;
+            this.handler = handler;
+        }
+
+        EventPoller.PollState poll() throws Exception {
+            return poller.poll(handler);
+        }
+    }
+}
@@ -40,6 +40,7 @@ public final class FatalExceptionHandler implements ExceptionHandler<Object> {
     @Override
     public void handleEventException(final Throwable ex, final long sequence, final Object event) {
         logger.log(Level.SEVERE, "Exception processing: " + sequence + " " + event, ex);
+        FlightRecorderEvents.fatalException(sequence, ex);
 
         throw new RuntimeException(ex);
     }
@@ -48,6 +48,16 @@ public final class FixedSequenceGroup extends Sequence {
         return Util.getMinimumSequence(sequences);
     }
 
+    /**
+     * The sequences tracked by this group, the returned array must not be modified.
+     *
+     * @return the sequences of the group.
+     */
+    Sequence[] getSequences()
+    {
+        return sequences;
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Java Flight Recorder events for stalls in the Disruptor, emitted only when a threshold is exceeded:</p>
+ * <ul>
+ *     <li><code>com.lmax.disruptor.ProducerStall</code> when a producer waits in <code>next()</code> for a full ring
+ *     longer than <code>disruptor.jfr.producerStallThreshold</code> microseconds, 100 by default.</li>
+ *     <li><code>com.lmax.disruptor.LongBatch</code> when a {@link BatchEventProcessor} spends longer than
+ *     <code>disruptor.jfr.longBatchThreshold</code> microseconds in its handler for one batch, 1000 by default.</li>
+ *     <li><code>com.lmax.disruptor.FatalException</code> when a {@link FatalExceptionHandler} halts a processor.</li>
+ * </ul>
+ *
+ * <p>The events are defined at runtime through <code>jdk.jfr.EventFactory</code>, looked up reflectively so that the
+ * library still compiles and runs on JDKs without Flight Recorder, where every method here does nothing.  Setting
+ * <code>disruptor.jfr.disabled</code> to true turns the events off.  Batches are only timed while a recording is
+ * running, otherwise the cost on the processor is a single volatile read per batch.</p>
+ *
+ * JFR自定义事件，只在超过阈值时提交
+ */
+final class FlightRecorderEvents {
+    static final long PRODUCER_STALL_THRESHOLD_NANOS = thresholdNanos("disruptor.jfr.producerStallThreshold", 100);
+    static final long LONG_BATCH_THRESHOLD_NANOS = thresholdNanos("disruptor.jfr.longBatchThreshold", 1000);
+
+    private static final DynamicEvent PRODUCER_STALL;
+    private static final DynamicEvent LONG_BATCH;
+    private static final DynamicEvent FATAL_EXCEPTION;
+    /**
+     * 是否有正在进行的recording
+     */
+    private static volatile boolean recording;
+
+    static {
+        DynamicEvent producerStall = null;
+        DynamicEvent longBatch = null;
+        DynamicEvent fatalException = null;
+        if (!Boolean.getBoolean("disruptor.jfr.disabled")) {
+            try {
+                producerStall = new DynamicEvent(
+                    "com.lmax.disruptor.ProducerStall", "Producer Stall",
+                    "A producer waited for consumers to free space in a full ring buffer",
+                    new Field("stallTime", "Stall Time", long.class, true),
+                    new Field("sequence", "Claimed Sequence", long.class, false),
+                    new Field("claimSize", "Claim Size", int.class, false));
+                longBatch = new DynamicEvent(
+                    "com.lmax.disruptor.LongBatch", "Long Batch",
+                    "An event processor spent longer than the threshold handling one batch",
+                    new Field("batchTime", "Batch Time", long.class, true),
+                    new Field("firstSequence", "First Sequence", long.class, false),
+                    new Field("batchSize", "Batch Size", long.class, false),
+                    new Field("handler", "Handler", String.class, false));
+                fatalException = new DynamicEvent(
+                    "com.lmax.disruptor.FatalException", "Fatal Exception",
+                    "An event processor was halted by an exception from its handler",
+                    new Field("sequence", "Sequence", long.class, false),
+                    new Field("exception", "Exception", String.class, false),
+                    new Field("message", "Message", String.class, false));
+                addRecordingListener();
+            }
+            catch (final Throwable ignore) {
+                // Flight Recorder is not available on this JDK.
+                producerStall = null;
+                longBatch = null;
+                fatalException = null;
+            }
+        }
+
+        PRODUCER_STALL = producerStall;
+        LONG_BATCH = longBatch;
+        FATAL_EXCEPTION = fatalException;
+    }
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * @return true if batches should be timed, because a recording that may include long batch events is running.
+     */
+    static boolean isLongBatchRecorded()
+    {
+        return null != LONG_BATCH && recording;
+    }
+
+    static void producerStalled(final long stallNanos, final long sequence, final int claimSize) {
+        if (stallNanos >= PRODUCER_STALL_THRESHOLD_NANOS && null != PRODUCER_STALL && recording) {
+            PRODUCER_STALL.commit(stallNanos, sequence, claimSize);
+        }
+    }
+
+    static void longBatch(final long batchNanos, final long firstSequence, final long batchSize, final Object handler) {
+        if (batchNanos >= LONG_BATCH_THRESHOLD_NANOS && null != LONG_BATCH && recording) {
+            LONG_BATCH.commit(batchNanos, firstSequence, batchSize, handler.getClass().getName());
+        }
+    }
+
+    static void fatalException(final long sequence, final Throwable ex) {
+        if (null != FATAL_EXCEPTION && recording) {
+            FATAL_EXCEPTION.commit(sequence, ex.getClass().getName(), String.valueOf(ex.getMessage()));
+        }
+    }
+
+    private static long thresholdNanos(final String property, final long defaultMicros) {
+        return TimeUnit.MICROSECONDS.toNanos(Long.getLong(property, defaultMicros));
+    }
+
+    /**
+     * Track whether any recording is running, through a proxy of <code>jdk.jfr.FlightRecorderListener</code>.
+     */
+    private static void addRecordingListener() throws Exception {
+        final Class<?> flightRecorderClass = Class.forName("jdk.jfr.FlightRecorder");
+        final Class<?> listenerClass = Class.forName("jdk.jfr.FlightRecorderListener");
+        final Method getFlightRecorder = flightRecorderClass.getMethod("getFlightRecorder");
+        final Method getRecordings = flightRecorderClass.getMethod("getRecordings");
+        final Method getState = Class.forName("jdk.jfr.Recording").getMethod("getState");
+
+        final Object listener = Proxy.newProxyInstance(
+            FlightRecorderEvents.class.getClassLoader(),
+            new Class<?>[]{listenerClass},
+            new InvocationHandler() {
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                    if (method.getDeclaringClass() == Object.class) {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return "FlightRecorderEvents.listener";
+                        }
+                    }
+
+                    boolean running = false;
+                    final Object flightRecorder = "recorderInitialized".equals(method.getName()) ?
+                        args[0] : getFlightRecorder.invoke(null);
+                    for (final Object recording : (List<?>) getRecordings.invoke(flightRecorder)) {
+                        running |= "RUNNING".equals(String.valueOf(getState.invoke(recording)));
+                    }
+                    recording = running;
+                    return null;
+                }
+            });
+
+        flightRecorderClass.getMethod("addListener", listenerClass).invoke(null, listener);
+    }
+
+    /**
+     * 事件字段定义
+     */
+    private static final class Field {
+        private final String name;
+        private final String label;
+        private final Class<?> type;
+        private final boolean timespan;
+
+        Field(final String name, final String label, final Class<?> type, final boolean timespan) {
+            this.name = name;
+            this.label = label;
+            this.type = type;
+            this.timespan = timespan;
+        }
+    }
+
+    /**
+     * An event type created with <code>jdk.jfr.EventFactory</code>, committed reflectively.
+     *
+     * 运行时定义的JFR事件
+     */
+    private static final class DynamicEvent {
+        private final Object factory;
+        private final Method newEvent;
+        private final Method set;
+        private final Method commit;
+        private final Method shouldCommit;
+
+        DynamicEvent(final String name, final String label, final String description, final Field... fields)
+            throws Exception {
+            final Constructor<?> annotationElement =
+                Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class);
+            final Constructor<?> valueDescriptor =
+                Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+
+            final List<Object> annotations = new ArrayList<>();
+            annotations.add(annotationElement.newInstance(annotation("jdk.jfr.Name"), name));
+            annotations.add(annotationElement.newInstance(annotation("jdk.jfr.Label"), label));
+            annotations.add(annotationElement.newInstance(annotation("jdk.jfr.Description"), description));
+            annotations.add(annotationElement.newInstance(annotation("jdk.jfr.Category"), new String[]{"Disruptor"}));
+
+            final List<Object> descriptors = new ArrayList<>();
+            for (final Field field : fields) {
+                final List<Object> fieldAnnotations = new ArrayList<>();
+                fieldAnnotations.add(annotationElement.newInstance(annotation("jdk.jfr.Label"), field.label));
+                if (field.timespan) {
+                    fieldAnnotations.add(annotationElement.newInstance(annotation("jdk.jfr.Timespan"), "NANOSECONDS"));
+                }
+                descriptors.add(valueDescriptor.newInstance(field.type, field.name, fieldAnnotations));
+            }
+
+            final Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+            final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            factory = eventFactoryClass.getMethod("create", List.class, List.class)
+                .invoke(null, Collections.unmodifiableList(annotations), Collections.unmodifiableList(descriptors));
+            newEvent = eventFactoryClass.getMethod("newEvent");
+            set = eventClass.getMethod("set", int.class, Object.class);
+            commit = eventClass.getMethod("commit");
+            shouldCommit = eventClass.getMethod("shouldCommit");
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Class<? extends Annotation> annotation(final String className) throws ClassNotFoundException
+        {
+            return (Class<? extends Annotation>) Class.forName(className);
+        }
+
+        void commit(final Object... values) {
+            try {
+                final Object event = newEvent.invoke(factory);
+                if (!(Boolean) shouldCommit.invoke(event)) {
+                    return;
+                }
+                for (int i = 0; i < values.length; i++) {
+                    set.invoke(event, i, values[i]);
+                }
+                commit.invoke(event);
+            }
+            catch (final Exception ignore) {
+                // Never fail the caller because an event could not be recorded.
+            }
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.PowerOfTwoHistogram;
+import com.lmax.disruptor.util.ThreadHints;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Phased wait strategy that busy spins for a bounded time, then yields for a bounded time, and then parks the
+ * waiting thread until it is signalled by a publisher, recording for each {@link SequenceBarrier} in which phase its
+ * waits were resolved.</p>
+ *
+ * <p>The park phase works like {@link ParkingWaitStrategy}: waiters push themselves on a lock free stack, and a
+ * publish only costs a volatile read when nobody is parked.  As with {@link DependencyAwareBlockingWaitStrategy} each
+ * barrier has its own stack, so a publish wakes only the barriers reading directly from the cursor, and an upstream
+ * consumer making progress wakes only the barriers gated on it.  Signallers stamp the time at which they signal, and
+ * waiters record the time taken to be woken in a {@link PowerOfTwoHistogram}, which together with the phase counts
+ * shows whether the spin and yield timeouts suit the workload.</p>
+ *
+ * 先自旋再让出最后park的等待策略，并按栅栏统计各阶段命中次数与唤醒延迟
+ */
+public final class HybridWaitStrategy implements ProgressAwareWaitStrategy {
+    private static final WaiterStack[] NO_WAITERS = new WaiterStack[0];
+    /**
+     * 每自旋多少次读取一次时钟
+     */
+    private static final int SPIN_TRIES = 100;
+
+    private final long spinTimeoutNanos;
+    private final long yieldTimeoutNanos;
+    private final long maxParkNanos;
+    /**
+     * 栅栏 -> 等待点，写时复制
+     */
+    private volatile Map<SequenceBarrier, WaitPoint> waitPointsByBarrier = new IdentityHashMap<>();
+    /**
+     * 被推进的序号 -> 依赖它的等待者
+     */
+    private volatile Map<Sequence, WaiterStack[]> waitersByDependency = new IdentityHashMap<>();
+    /**
+     * 直接依赖cursor的等待者，由生产者唤醒
+     */
+    private volatile WaiterStack[] cursorWaiters = NO_WAITERS;
+    /**
+     * 无法分解依赖关系的等待者，任何进度都会唤醒
+     */
+    private volatile WaiterStack[] opaqueWaiters = NO_WAITERS;
+
+    /**
+     * Spin for 10µs, yield for 100µs and then park for at most 1ms at a time.
+     */
+    public HybridWaitStrategy() {
+        this(10, 100, 1000, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * @param spinTimeout  the longest time to busy spin for.
+     * @param yieldTimeout the longest time to yield for once spinning has timed out.
+     * @param maxParkTime  longest a waiter parks before re-checking the sequence without being signalled.
+     * @param units        of the timeouts.
+     */
+    public HybridWaitStrategy(
+        final long spinTimeout,
+        final long yieldTimeout,
+        final long maxParkTime,
+        final TimeUnit units) {
+        spinTimeoutNanos = units.toNanos(spinTimeout);
+        yieldTimeoutNanos = spinTimeoutNanos + units.toNanos(yieldTimeout);
+        maxParkNanos = units.toNanos(maxParkTime);
+        if (spinTimeoutNanos < 0 || yieldTimeoutNanos < spinTimeoutNanos) {
+            throw new IllegalArgumentException("spinTimeout and yieldTimeout must not be negative");
+        }
+        if (maxParkNanos < 1) {
+            throw new IllegalArgumentException("maxParkTime must be positive");
+        }
+    }
+
+    @Override
+    public long waitFor(long sequence, Sequence cursorSequence, Sequence dependentSequence, SequenceBarrier barrier)
+        throws AlertException, InterruptedException {
+        long availableSequence;
+        if ((availableSequence = dependentSequence.get()) >= sequence) {
+            return availableSequence;
+        }
+
+        final WaitPoint waitPoint = waitPointFor(barrier, cursorSequence, dependentSequence);
+        final long startTime = System.nanoTime();
+        int counter = SPIN_TRIES;
+
+        // 自旋阶段
+        while ((availableSequence = dependentSequence.get()) < sequence) {
+            barrier.checkAlert();
+            ThreadHints.onSpinWait();
+            if (0 == --counter) {
+                if (System.nanoTime() - startTime > spinTimeoutNanos) {
+                    return yieldThenPark(sequence, dependentSequence, barrier, waitPoint, startTime);
+                }
+                counter = SPIN_TRIES;
+            }
+        }
+
+        waitPoint.stats.spinResolved.incrementAndGet();
+        return availableSequence;
+    }
+
+    private long yieldThenPark(
+        final long sequence,
+        final Sequence dependentSequence,
+        final SequenceBarrier barrier,
+        final WaitPoint waitPoint,
+        final long startTime) throws AlertException, InterruptedException {
+        long availableSequence;
+
+        // 让出阶段
+        while ((availableSequence = dependentSequence.get()) < sequence) {
+            barrier.checkAlert();
+            if (System.nanoTime() - startTime > yieldTimeoutNanos) {
+                return park(sequence, dependentSequence, barrier, waitPoint);
+            }
+            Thread.yield();
+        }
+
+        waitPoint.stats.yieldResolved.incrementAndGet();
+        return availableSequence;
+    }
+
+    private long park(
+        final long sequence,
+        final Sequence dependentSequence,
+        final SequenceBarrier barrier,
+        final WaitPoint waitPoint) throws AlertException, InterruptedException {
+        final WaitStats stats = waitPoint.stats;
+        long availableSequence;
+        WaiterStack.Node node = waitPoint.waiters.push();
+        try {
+            while ((availableSequence = dependentSequence.get()) < sequence) {
+                barrier.checkAlert();
+                LockSupport.parkNanos(this, maxParkNanos);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+
+                if (node.isSignalled()) {
+                    stats.wakeLatency.record(System.nanoTime() - node.getSignalTime());
+                    // Popped by a signaller, register again before re-checking the sequence.
+                    node = waitPoint.waiters.push();
+                }
+            }
+        }
+        finally {
+            node.cancel();
+        }
+
+        stats.parkResolved.incrementAndGet();
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        signal(cursorWaiters);
+        signal(opaqueWaiters);
+    }
+
+    @Override
+    public void signalProgressWhenBlocking(final Sequence sequence) {
+        final WaiterStack[] waiters = waitersByDependency.get(sequence);
+        if (null != waiters) {
+            signal(waiters);
+        }
+        signal(opaqueWaiters);
+    }
+
+    private static void signal(final WaiterStack[] waiters) {
+        for (final WaiterStack waiterStack : waiters) {
+            waiterStack.signalAll();
+        }
+    }
+
+    /**
+     * Get the statistics of the waits made on a barrier.
+     *
+     * @param barrier that has waited on this strategy.
+     * @return the statistics, or <code>null</code> if nothing has had to wait on the barrier yet.
+     */
+    public WaitStats getWaitStats(final SequenceBarrier barrier)
+    {
+        final WaitPoint waitPoint = waitPointsByBarrier.get(barrier);
+        return null != waitPoint ? waitPoint.stats : null;
+    }
+
+    /**
+     * @return a snapshot of the statistics of every barrier that has had to wait on this strategy.
+     */
+    public Map<SequenceBarrier, WaitStats> getAllWaitStats() {
+        final Map<SequenceBarrier, WaitStats> statsByBarrier = new IdentityHashMap<>();
+        for (final Map.Entry<SequenceBarrier, WaitPoint> entry : waitPointsByBarrier.entrySet()) {
+            statsByBarrier.put(entry.getKey(), entry.getValue().stats);
+        }
+        return Collections.unmodifiableMap(statsByBarrier);
+    }
+
+    private WaitPoint waitPointFor(
+        final SequenceBarrier barrier, final Sequence cursorSequence, final Sequence dependentSequence) {
+        final WaitPoint waitPoint = waitPointsByBarrier.get(barrier);
+        return null != waitPoint ? waitPoint : register(barrier, cursorSequence, dependentSequence);
+    }
+
+    private synchronized WaitPoint register(
+        final SequenceBarrier barrier, final Sequence cursorSequence, final Sequence dependentSequence) {
+        WaitPoint waitPoint = waitPointsByBarrier.get(barrier);
+        if (null != waitPoint) {
+            return waitPoint;
+        }
+
+        waitPoint = new WaitPoint();
+        final WaiterStack waiters = waitPoint.waiters;
+
+        // Copy on write, registration only happens once per barrier.
+        final Map<Sequence, WaiterStack[]> byDependency = new IdentityHashMap<>(waitersByDependency);
+        addDependency(byDependency, dependentSequence, waiters);
+        if (dependentSequence == cursorSequence) {
+            cursorWaiters = append(cursorWaiters, waiters);
+        }
+        else if (dependentSequence instanceof FixedSequenceGroup) {
+            for (final Sequence member : ((FixedSequenceGroup) dependentSequence).getSequences()) {
+                addDependency(byDependency, member, waiters);
+            }
+        }
+        else if (dependentSequence instanceof SequenceGroup) {
+            opaqueWaiters = append(opaqueWaiters, waiters);
+        }
+        waitersByDependency = byDependency;
+
+        final Map<SequenceBarrier, WaitPoint> byBarrier = new IdentityHashMap<>(waitPointsByBarrier);
+        byBarrier.put(barrier, waitPoint);
+        waitPointsByBarrier = byBarrier;
+
+        return waitPoint;
+    }
+
+    private static void addDependency(
+        final Map<Sequence, WaiterStack[]> byDependency, final Sequence sequence, final WaiterStack waiters) {
+        final WaiterStack[] current = byDependency.get(sequence);
+        byDependency.put(sequence, append(null == current ? NO_WAITERS : current, waiters));
+    }
+
+    private static WaiterStack[] append(final WaiterStack[] current, final WaiterStack waiters) {
+        final WaiterStack[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = waiters;
+        return updated;
+    }
+
+    @Override
+    public String toString() {
+        return "HybridWaitStrategy{" +
+            "spinTimeoutNanos=" + spinTimeoutNanos +
+            ", yieldTimeoutNanos=" + yieldTimeoutNanos +
+            ", maxParkNanos=" + maxParkNanos +
+            ", barriers=" + waitPointsByBarrier.size() +
+            '}';
+    }
+
+    /**
+     * <p>Counts of the waits on one barrier by the phase in which they were resolved, and the latency of waking
+     * parked waiters once signalled, in nanoseconds.</p>
+     *
+     * <p>Waits that found the sequence already available are not counted.</p>
+     *
+     * 单个栅栏的等待统计
+     */
+    public static final class WaitStats {
+        private final AtomicLong spinResolved = new AtomicLong();
+        private final AtomicLong yieldResolved = new AtomicLong();
+        private final AtomicLong parkResolved = new AtomicLong();
+        private final PowerOfTwoHistogram wakeLatency = new PowerOfTwoHistogram();
+
+        WaitStats() {
+        }
+
+        public long getSpinResolved()
+        {
+            return spinResolved.get();
+        }
+
+        public long getYieldResolved()
+        {
+            return yieldResolved.get();
+        }
+
+        public long getParkResolved()
+        {
+            return parkResolved.get();
+        }
+
+        public PowerOfTwoHistogram getWakeLatency()
+        {
+            return wakeLatency;
+        }
+
+        @Override
+        public String toString() {
+            return "WaitStats{" +
+                "spinResolved=" + getSpinResolved() +
+                ", yieldResolved=" + getYieldResolved() +
+                ", parkResolved=" + getParkResolved() +
+                ", wakeLatency=" + wakeLatency +
+                '}';
+        }
+    }
+
+    /**
+     * 单个栅栏的等待者与统计
+     */
+    private static final class WaitPoint {
+        private final WaiterStack waiters = new WaiterStack();
+        private final WaitStats stats = new WaitStats();
+    }
+}
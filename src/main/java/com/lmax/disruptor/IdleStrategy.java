@@ -0,0 +1,40 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Strategy employed by a thread that drives non-blocking work, such as polling an {@link EventPoller} or running
+ * {@link DutyCycleEventProcessor}s, when a cycle of that work found nothing to do.
+ * <p>
+ * Unlike a {@link WaitStrategy} an idle strategy is never signalled, it simply decides how long to back off before
+ * the next cycle.  Implementations are stateful and must not be shared between threads.
+ *
+ * 空闲策略
+ */
+public interface IdleStrategy {
+    /**
+     * Perform the current idle action if no work was done in the last cycle, otherwise reset back to the most
+     * responsive state.
+     *
+     * @param workCount performed in the last duty cycle.
+     */
+    void idle(int workCount);
+
+    /**
+     * Reset the internal state in preparation for entering an idle period.
+     */
+    void reset();
+}
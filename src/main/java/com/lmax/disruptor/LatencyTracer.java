@@ -0,0 +1,200 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.PowerOfTwoHistogram;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Traces the latency of events through the stages of a {@link RingBuffer} without adding timestamps to the events
+ * themselves.  Once enabled with {@link RingBuffer#enableLatencyTracing(int)} the ring buffer stamps the publish time
+ * of every sampled sequence into an array parallel to its entries, and each processor given a {@link Stage} records,
+ * for the sampled sequences it handles, the queueing latency from publication to the start of its handler and the
+ * service latency of the handler itself.  Times are from {@link System#nanoTime()} in nanoseconds.</p>
+ *
+ * <p>Sampling every Nth sequence keeps the cost to a clock read per sampled sequence on each side; with a sample
+ * interval of 1 every event is traced.</p>
+ *
+ * 不修改事件类的端到端延迟追踪，按序号采样记录发布时间
+ */
+public final class LatencyTracer {
+    private final AtomicLongArray publishTimes;
+    private final int indexMask;
+    private final int sampleInterval;
+    private final long sampleMask;
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param bufferSize     of the ring buffer being traced, must be a power of 2.
+     * @param sampleInterval trace every sampleInterval-th sequence, must be a power of 2, 1 traces every event.
+     */
+    public LatencyTracer(final int bufferSize, final int sampleInterval) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+        if (sampleInterval < 1 || Integer.bitCount(sampleInterval) != 1) {
+            throw new IllegalArgumentException("sampleInterval must be a power of 2");
+        }
+
+        this.publishTimes = new AtomicLongArray(bufferSize);
+        this.indexMask = bufferSize - 1;
+        this.sampleInterval = sampleInterval;
+        this.sampleMask = sampleInterval - 1;
+    }
+
+    /**
+     * @param sequence to check.
+     * @return true if the sequence is traced.
+     */
+    public boolean isSampled(final long sequence)
+    {
+        return (sequence & sampleMask) == 0;
+    }
+
+    /**
+     * Stamp the publish time of a sequence if it is sampled, called before the sequence is made available.
+     *
+     * @param sequence being published.
+     */
+    public void stamp(final long sequence) {
+        if (isSampled(sequence)) {
+            publishTimes.lazySet((int) sequence & indexMask, System.nanoTime());
+        }
+    }
+
+    /**
+     * Stamp the publish time of every sampled sequence in a range, with a single read of the clock.
+     *
+     * @param lo the lowest sequence being published.
+     * @param hi the highest sequence being published.
+     */
+    public void stamp(final long lo, final long hi) {
+        final long first = (lo + sampleMask) & ~sampleMask;
+        if (first <= hi) {
+            final long now = System.nanoTime();
+            for (long sequence = first; sequence <= hi; sequence += sampleInterval) {
+                publishTimes.lazySet((int) sequence & indexMask, now);
+            }
+        }
+    }
+
+    /**
+     * @param sequence a sampled sequence that has been published and not yet overwritten.
+     * @return the time at which the sequence was published.
+     */
+    public long getPublishTime(final long sequence)
+    {
+        return publishTimes.get((int) sequence & indexMask);
+    }
+
+    public int getSampleInterval()
+    {
+        return sampleInterval;
+    }
+
+    /**
+     * Create a stage to record the latencies of one processor.  Each processor needs its own stage.
+     *
+     * @param name of the stage, used when reporting.
+     * @return the new stage.
+     */
+    public Stage newStage(final String name) {
+        final Stage stage = new Stage(this, name);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * @return every stage created by this tracer, in the order they were created.
+     */
+    public List<Stage> getStages()
+    {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * <p>The latencies recorded by one processor.  Written only by the thread of that processor, and readable from
+     * any thread.</p>
+     *
+     * 单个消费阶段的排队延迟和处理延迟
+     */
+    public static final class Stage {
+        private final LatencyTracer tracer;
+        private final String name;
+        private final PowerOfTwoHistogram queueingLatency = new PowerOfTwoHistogram();
+        private final PowerOfTwoHistogram serviceLatency = new PowerOfTwoHistogram();
+
+        Stage(final LatencyTracer tracer, final String name) {
+            this.tracer = tracer;
+            this.name = name;
+        }
+
+        /**
+         * @param sequence to check.
+         * @return true if the handling of the sequence should be timed and recorded.
+         */
+        public boolean isSampled(final long sequence)
+        {
+            return tracer.isSampled(sequence);
+        }
+
+        /**
+         * Record the handling of a sampled sequence.
+         *
+         * @param sequence  that was handled.
+         * @param startTime when the handler was called.
+         * @param endTime   when the handler returned.
+         */
+        public void record(final long sequence, final long startTime, final long endTime) {
+            queueingLatency.recordSingleWriter(startTime - tracer.getPublishTime(sequence));
+            serviceLatency.recordSingleWriter(endTime - startTime);
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @return the time from publication of sampled events to the start of their handling by this stage.
+         */
+        public PowerOfTwoHistogram getQueueingLatency()
+        {
+            return queueingLatency;
+        }
+
+        /**
+         * @return the time spent handling sampled events in this stage.
+         */
+        public PowerOfTwoHistogram getServiceLatency()
+        {
+            return serviceLatency;
+        }
+
+        @Override
+        public String toString() {
+            return "Stage{" +
+                "name='" + name + '\'' +
+                ", queueingLatency=" + queueingLatency +
+                ", serviceLatency=" + serviceLatency +
+                '}';
+        }
+    }
+}
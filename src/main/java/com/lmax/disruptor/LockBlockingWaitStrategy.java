@@ -0,0 +1,80 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.ThreadHints;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Variation of the {@link BlockingWaitStrategy} that waits on a {@link ReentrantLock} and {@link Condition} rather
+ * than a monitor.
+ * <p>
+ * Blocking inside <code>synchronized</code> pins a virtual thread to its carrier thread, whereas waiting on a
+ * {@link Condition} unmounts it.  Prefer this strategy when event processors or blocking publishers run on
+ * virtual threads.
+ *
+ * 基于ReentrantLock的阻塞等待策略，不会钉住虚拟线程
+ */
+public final class LockBlockingWaitStrategy implements WaitStrategy {
+    private final Lock lock = new ReentrantLock();
+    private final Condition processorNotifyCondition = lock.newCondition();
+
+    @Override
+    public long waitFor(long sequence, Sequence cursorSequence, Sequence dependentSequence, SequenceBarrier barrier)
+        throws AlertException, InterruptedException {
+        long availableSequence;
+        if (cursorSequence.get() < sequence) {
+            lock.lock();
+            try {
+                while (cursorSequence.get() < sequence) {
+                    barrier.checkAlert();
+                    processorNotifyCondition.await();
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        while ((availableSequence = dependentSequence.get()) < sequence) {
+            barrier.checkAlert();
+            ThreadHints.onSpinWait();
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        lock.lock();
+        try {
+            processorNotifyCondition.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LockBlockingWaitStrategy{" +
+            "processorNotifyCondition=" + processorNotifyCondition +
+            '}';
+    }
+}
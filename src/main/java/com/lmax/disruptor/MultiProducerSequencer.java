@@ -38,6 +38,15 @@ public final class MultiProducerSequencer extends AbstractSequencer {
     private static final Unsafe UNSAFE = Util.getUnsafe();
     private static final long BASE = UNSAFE.arrayBaseOffset(int[].class);
     private static final long SCALE = UNSAFE.arrayIndexScale(int[].class);
+    /**
+     * 争用统计的计数器下标
+     */
+    private static final int CLAIMS = 0;
+    private static final int CLAIM_ATTEMPTS = 1;
+    private static final int CAS_FAILURES = 2;
+    private static final int GATING_CACHE_MISSES = 3;
+    private static final int FULL_RING_PARKS = 4;
+    private static final int FULL_RING_PARK_NANOS = 5;
     /**
      * 缓存
      */
@@ -48,6 +57,10 @@ public final class MultiProducerSequencer extends AbstractSequencer {
     private final int[] availableBuffer;
     private final int indexMask;
     private final int indexShift;
+    /**
+     * 争用统计，未开启时为null
+     */
+    private volatile StripedCounters stats;
 
     /**
      * Construct a Sequencer with the selected wait strategy and buffer size.
@@ -115,8 +128,15 @@ public final class MultiProducerSequencer extends AbstractSequencer {
             throw new IllegalArgumentException("n must be > 0 and < bufferSize");
         }
 
+        final StripedCounters stats = this.stats;
+        if (null != stats) {
+            return nextWithStats(n, stats);
+        }
+
         long current;
         long next;
+        //ringBuffer满时开始等待的时间，没有等待时为0
+        long stallStart = 0L;
 
         do {
             current = cursor.get();
@@ -130,6 +150,9 @@ public final class MultiProducerSequencer extends AbstractSequencer {
                 long gatingSequence = Util.getMinimumSequence(gatingSequences, current);
 
                 if (wrapPoint > gatingSequence) {
+                    if (0L == stallStart) {
+                        stallStart = System.nanoTime();
+                    }
                     // TODO, should we spin based on the wait strategy?
                     LockSupport.parkNanos(1);
                     continue;
@@ -141,9 +164,101 @@ public final class MultiProducerSequencer extends AbstractSequencer {
             }
         } while (true);
 
+        if (0L != stallStart) {
+            FlightRecorderEvents.producerStalled(System.nanoTime() - stallStart, next, n);
+        }
         return next;
     }
 
+    /**
+     * Same as {@link #next(int)}, counting the passes through the loop locally and adding them to the stats once the
+     * sequences have been claimed, so the disabled path carries no extra work beyond reading the stats field.
+     */
+    private long nextWithStats(final int n, final StripedCounters stats) {
+        long attempts = 0;
+        long casFailures = 0;
+        long cacheMisses = 0;
+        long parks = 0;
+        //ringBuffer满时开始等待的时间，与next(int)一样按经过的时间统计
+        long stallStart = 0L;
+        long current;
+        long next;
+
+        do {
+            attempts++;
+            current = cursor.get();
+            next = current + n;
+
+            long wrapPoint = next - bufferSize;
+            long cachedGatingSequence = gatingSequenceCache.get();
+
+            if (wrapPoint > cachedGatingSequence || cachedGatingSequence > current) {
+                cacheMisses++;
+                long gatingSequence = Util.getMinimumSequence(gatingSequences, current);
+
+                if (wrapPoint > gatingSequence) {
+                    if (0L == stallStart) {
+                        stallStart = System.nanoTime();
+                    }
+                    LockSupport.parkNanos(1);
+                    parks++;
+                    continue;
+                }
+
+                gatingSequenceCache.set(gatingSequence);
+            } else if (cursor.compareAndSet(current, next)) {
+                break;
+            } else {
+                casFailures++;
+            }
+        } while (true);
+
+        final int stripe = stats.stripe();
+        stats.add(stripe, CLAIMS, 1);
+        stats.add(stripe, CLAIM_ATTEMPTS, attempts);
+        if (0 != casFailures) {
+            stats.add(stripe, CAS_FAILURES, casFailures);
+        }
+        if (0 != cacheMisses) {
+            stats.add(stripe, GATING_CACHE_MISSES, cacheMisses);
+        }
+        if (0 != parks) {
+            final long parkNanos = System.nanoTime() - stallStart;
+            stats.add(stripe, FULL_RING_PARKS, parks);
+            stats.add(stripe, FULL_RING_PARK_NANOS, parkNanos);
+            FlightRecorderEvents.producerStalled(parkNanos, next, n);
+        }
+
+        return next;
+    }
+
+    /**
+     * Start counting the contention between publishers in {@link #next(int)}, has no effect if already started.
+     */
+    public synchronized void enableStats() {
+        if (null == stats) {
+            stats = new StripedCounters(FULL_RING_PARK_NANOS + 1);
+        }
+    }
+
+    /**
+     * @return a snapshot of the contention between publishers, or <code>null</code> if stats have not been enabled.
+     */
+    public SequencerStats getStats() {
+        final StripedCounters stats = this.stats;
+        if (null == stats) {
+            return null;
+        }
+
+        return new SequencerStats(
+            stats.sum(CLAIMS),
+            stats.sum(CLAIM_ATTEMPTS),
+            stats.sum(CAS_FAILURES),
+            stats.sum(GATING_CACHE_MISSES),
+            stats.sum(FULL_RING_PARKS),
+            stats.sum(FULL_RING_PARK_NANOS));
+    }
+
     /**
      * @see Sequencer#tryNext()
      */
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.ThreadHints;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Blocking strategy in which each waiting thread pushes itself onto a lock free stack of waiters and parks, and
+ * publishers unpark only the threads on the stack.</p>
+ *
+ * <p>Unlike {@link BlockingWaitStrategy} there is no shared monitor: when nobody is waiting a publish costs a single
+ * volatile read, and waking waiters does not make them convoy through a lock.</p>
+ *
+ * <p>The cursor is published with an ordered store, which may not yet be visible when a waiter registers and re-reads
+ * it, so a signal can in rare cases be missed.  Waiters therefore park with a timeout, which bounds the latency of such
+ * a missed signal, by default to 1ms.</p>
+ *
+ * 基于LockSupport.park的阻塞等待策略，等待者自己入栈，生产者只唤醒栈中的线程
+ */
+public final class ParkingWaitStrategy implements WaitStrategy {
+    private final long maxParkNanos;
+    private final WaiterStack waiters = new WaiterStack();
+
+    public ParkingWaitStrategy() {
+        this(1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param maxParkTime longest a waiter parks before re-checking the cursor without being signalled.
+     * @param units       of maxParkTime.
+     */
+    public ParkingWaitStrategy(final long maxParkTime, final TimeUnit units) {
+        maxParkNanos = units.toNanos(maxParkTime);
+        if (maxParkNanos < 1) {
+            throw new IllegalArgumentException("maxParkTime must be positive");
+        }
+    }
+
+    @Override
+    public long waitFor(long sequence, Sequence cursorSequence, Sequence dependentSequence, SequenceBarrier barrier)
+        throws AlertException, InterruptedException {
+        long availableSequence;
+        if (cursorSequence.get() < sequence) {
+            WaiterStack.Node node = waiters.push();
+            try {
+                while (cursorSequence.get() < sequence) {
+                    barrier.checkAlert();
+                    LockSupport.parkNanos(this, maxParkNanos);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+
+                    if (node.isSignalled()) {
+                        // Popped by a publisher, register again before re-checking the cursor.
+                        node = waiters.push();
+                    }
+                }
+            }
+            finally {
+                node.cancel();
+            }
+        }
+
+        while ((availableSequence = dependentSequence.get()) < sequence) {
+            barrier.checkAlert();
+            ThreadHints.onSpinWait();
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        waiters.signalAll();
+    }
+
+    @Override
+    public String toString() {
+        return "ParkingWaitStrategy{" +
+            "maxParkNanos=" + maxParkNanos +
+            ", waiting=" + !waiters.isEmpty() +
+            '}';
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link DutyCycleEventProcessor} that delivers events to an {@link EventHandler} using an {@link EventPoller},
+ * so it never blocks inside a {@link WaitStrategy}.  Each call to {@link #doWork()} handles at most
+ * <code>maxBatchSize</code> events, which keeps a single busy processor from starving others sharing its thread.
+ * <p>
+ * If the {@link EventHandler} also implements {@link LifecycleAware} it will be notified from {@link #onStart()} and
+ * {@link #onShutdown()}.  {@link BatchStartAware} and {@link TimeoutHandler} are not supported.  The last event of
+ * each duty cycle is flagged as the end of the batch, including when the batch is cut short by
+ * <code>maxBatchSize</code>, because the sequence is moved past it once the duty cycle ends.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ *
+ * 基于EventPoller的非阻塞消费者
+ */
+public final class PollingEventProcessor<T> implements DutyCycleEventProcessor {
+    private static final int IDLE = 0;
+    private static final int HALTED = IDLE + 1;
+    private static final int RUNNING = HALTED + 1;
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    private final AtomicInteger running = new AtomicInteger(IDLE);
+    private ExceptionHandler<? super T> exceptionHandler = new FatalExceptionHandler();
+    private final DataProvider<T> dataProvider;
+    private final EventPoller<T> eventPoller;
+    private final EventHandler<? super T> eventHandler;
+    private final int maxBatchSize;
+    private final IdleStrategy idleStrategy;
+    private final BatchHandler batchHandler = new BatchHandler();
+
+    /**
+     * Construct a processor that handles up to 256 events per duty cycle and backs off with a
+     * {@link BackoffIdleStrategy} when run on a dedicated thread.
+     *
+     * @param dataProvider to which events are published.
+     * @param eventPoller  used to poll for events, its sequence becomes the sequence of this processor.
+     * @param eventHandler is the delegate to which events are dispatched.
+     */
+    public PollingEventProcessor(
+        final DataProvider<T> dataProvider,
+        final EventPoller<T> eventPoller,
+        final EventHandler<? super T> eventHandler) {
+        this(dataProvider, eventPoller, eventHandler, DEFAULT_MAX_BATCH_SIZE, new BackoffIdleStrategy());
+    }
+
+    /**
+     * @param dataProvider to which events are published.
+     * @param eventPoller  used to poll for events, its sequence becomes the sequence of this processor.
+     * @param eventHandler is the delegate to which events are dispatched.
+     * @param maxBatchSize the maximum number of events to handle in one duty cycle.
+     * @param idleStrategy used between duty cycles when this processor is run on a dedicated thread.
+     */
+    public PollingEventProcessor(
+        final DataProvider<T> dataProvider,
+        final EventPoller<T> eventPoller,
+        final EventHandler<? super T> eventHandler,
+        final int maxBatchSize,
+        final IdleStrategy idleStrategy) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must not be less than 1");
+        }
+
+        this.dataProvider = dataProvider;
+        this.eventPoller = eventPoller;
+        this.eventHandler = eventHandler;
+        this.maxBatchSize = maxBatchSize;
+        this.idleStrategy = idleStrategy;
+
+        if (eventHandler instanceof SequenceReportingEventHandler) {
+            ((SequenceReportingEventHandler<?>) eventHandler).setSequenceCallback(eventPoller.getSequence());
+        }
+    }
+
+    @Override
+    public Sequence getSequence()
+    {
+        return eventPoller.getSequence();
+    }
+
+    @Override
+    public void halt()
+    {
+        running.set(HALTED);
+    }
+
+    @Override
+    public boolean isRunning()
+    {
+        return running.get() != IDLE;
+    }
+
+    /**
+     * Set a new {@link ExceptionHandler} for handling exceptions propagated out of the {@link EventHandler}
+     *
+     * @param exceptionHandler to replace the existing exceptionHandler.
+     */
+    public void setExceptionHandler(final ExceptionHandler<? super T> exceptionHandler) {
+        if (null == exceptionHandler) {
+            throw new NullPointerException();
+        }
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    @Override
+    public void onStart() {
+        // A processor halted before it was first scheduled stays HALTED, so the first doWork() stops it.
+        if (!running.compareAndSet(IDLE, RUNNING) && running.get() == RUNNING) {
+            throw new IllegalStateException("Thread is already running");
+        }
+
+        if (eventHandler instanceof LifecycleAware) {
+            try {
+                ((LifecycleAware) eventHandler).onStart();
+            }
+            catch (final Throwable ex) {
+                exceptionHandler.handleOnStartException(ex);
+            }
+        }
+    }
+
+    @Override
+    public int doWork() throws AlertException {
+        if (running.get() != RUNNING) {
+            throw AlertException.INSTANCE;
+        }
+
+        batchHandler.count = 0;
+        try {
+            eventPoller.poll(batchHandler);
+        }
+        catch (final Throwable ex) {
+            // The poller has already moved the sequence past the last event that was handled successfully.
+            final Sequence sequence = eventPoller.getSequence();
+            final long failedSequence = sequence.get() + 1L;
+            exceptionHandler.handleEventException(ex, failedSequence, dataProvider.get(failedSequence));
+            sequence.set(failedSequence);
+            batchHandler.count++;
+        }
+
+        return batchHandler.count;
+    }
+
+    @Override
+    public void onShutdown() {
+        try {
+            if (eventHandler instanceof LifecycleAware) {
+                try {
+                    ((LifecycleAware) eventHandler).onShutdown();
+                }
+                catch (final Throwable ex) {
+                    exceptionHandler.handleOnShutdownException(ex);
+                }
+            }
+        }
+        finally {
+            running.set(IDLE);
+        }
+    }
+
+    /**
+     * Drive this processor on the calling thread until it is halted, using the idle strategy between duty cycles.
+     * It is ok to have another thread rerun this method after a halt().
+     *
+     * @throws IllegalStateException if this object instance is already running in a thread
+     */
+    @Override
+    public void run() {
+        onStart();
+        try {
+            while (true) {
+                idleStrategy.idle(doWork());
+            }
+        }
+        catch (final AlertException ex) {
+            // halted
+        }
+        finally {
+            onShutdown();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PollingEventProcessor{" +
+            "eventHandler=" + eventHandler +
+            ", sequence=" + eventPoller.getSequence() +
+            '}';
+    }
+
+    private final class BatchHandler implements EventPoller.Handler<T> {
+        private int count;
+
+        @Override
+        public boolean onEvent(final T event, final long sequence, final boolean endOfBatch) throws Exception {
+            //按maxBatchSize截断时，序号会在本轮结束后推进，也要标记为批次末尾
+            final boolean lastOfCycle = count + 1 >= maxBatchSize;
+            eventHandler.onEvent(event, sequence, endOfBatch || lastOfCycle);
+            return ++count < maxBatchSize;
+        }
+    }
+}
@@ -106,6 +106,26 @@ final class ProcessingSequenceBarrier implements SequenceBarrier {
     public void alert() {
         alerted = true;
         waitStrategy.signalAllWhenBlocking();
+        if (waitStrategy instanceof ProgressAwareWaitStrategy) {
+            //只唤醒依赖cursor的等待者，还需要唤醒本栅栏的等待者
+            ((ProgressAwareWaitStrategy) waitStrategy).signalProgressWhenBlocking(dependentSequence);
+        }
+    }
+
+    /**
+     * @return true if this barrier waits on other processors as well as on the cursor.
+     */
+    boolean hasDependents()
+    {
+        return dependentSequence != cursorSequence;
+    }
+
+    /**
+     * @return the wait strategy shared by the barriers of the sequencer.
+     */
+    WaitStrategy getWaitStrategy()
+    {
+        return waitStrategy;
     }
 
     @Override
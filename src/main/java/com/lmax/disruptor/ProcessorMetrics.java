@@ -0,0 +1,294 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.PowerOfTwoHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Optional metrics recorded by a {@link BatchEventProcessor} or {@link WorkProcessor}: the distribution of batch
+ * sizes, the time spent blocked in {@link SequenceBarrier#waitFor(long)}, the time spent in the handler per batch and
+ * the lag of the processor behind the cursor at the start of each batch.  Times are in nanoseconds.</p>
+ *
+ * <p>An instance belongs to a single processor and is only ever written by that processor's thread, so recording uses
+ * ordered stores rather than atomic operations and never allocates.  It can be read from any other thread while the
+ * processor is running.  A {@link WorkProcessor} handles one event at a time, so each of its batches is one event.</p>
+ *
+ * <p>The time spent handling and the time spent waiting are also accumulated over a rolling window, split into
+ * {@link #WINDOW_SLOTS} slots, giving the utilisation of the processor thread.  The clock is only read at batch
+ * boundaries.  Each interval is spread over the slots it covers, and the batch or wait in progress is counted up to
+ * the time the utilisation is read, so a batch longer than the window reads as fully busy while it runs.</p>
+ *
+ * 单个消费者的批次大小、等待时间、处理时间以及落后游标的统计
+ */
+public final class ProcessorMetrics {
+    /**
+     * 滚动窗口的槽位数
+     */
+    public static final int WINDOW_SLOTS = 8;
+    private static final int BUSY = 0;
+    private static final int IDLE = 1;
+    /**
+     * 没有进行中的区间
+     */
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final Cursored cursor;
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong eventCount = new AtomicLong();
+    private final AtomicLong lastLag = new AtomicLong();
+    private final PowerOfTwoHistogram batchSizes = new PowerOfTwoHistogram();
+    private final PowerOfTwoHistogram waitTimes = new PowerOfTwoHistogram();
+    private final PowerOfTwoHistogram handlerTimes = new PowerOfTwoHistogram();
+    private final PowerOfTwoHistogram lags = new PowerOfTwoHistogram();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicLong idleNanos = new AtomicLong();
+    private final long slotNanos;
+    /**
+     * 每个槽位对应的时间片编号，以及其中的忙碌、空闲时间
+     */
+    private final AtomicLongArray slotEpochs = new AtomicLongArray(WINDOW_SLOTS);
+    private final AtomicLongArray slotNanoTimes = new AtomicLongArray(WINDOW_SLOTS * 2);
+    /**
+     * 进行中的批次或等待的开始时间，未进行时为NONE
+     */
+    private final AtomicLong busySince = new AtomicLong(NONE);
+    private final AtomicLong idleSince = new AtomicLong(NONE);
+
+    /**
+     * Create metrics whose utilisation is measured over the last second.
+     *
+     * @param cursor that the lag of the processor is measured against, usually the {@link RingBuffer}.
+     */
+    public ProcessorMetrics(final Cursored cursor)
+    {
+        this(cursor, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param cursor         that the lag of the processor is measured against, usually the {@link RingBuffer}.
+     * @param windowDuration over which the utilisation is measured.
+     * @param units          of the window duration.
+     */
+    public ProcessorMetrics(final Cursored cursor, final long windowDuration, final TimeUnit units) {
+        if (null == cursor) {
+            throw new NullPointerException("cursor");
+        }
+        this.cursor = cursor;
+        this.slotNanos = Math.max(1L, units.toNanos(windowDuration) / WINDOW_SLOTS);
+        for (int i = 0; i < WINDOW_SLOTS; i++) {
+            slotEpochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Record the time spent in a call to {@link SequenceBarrier#waitFor(long)}.
+     *
+     * @param startNanoTime when the call started.
+     * @param endNanoTime   when the call returned.
+     */
+    void recordWait(final long startNanoTime, final long endNanoTime) {
+        final long waitNanos = endNanoTime - startNanoTime;
+        waitTimes.recordSingleWriter(waitNanos);
+        idleNanos.lazySet(idleNanos.get() + waitNanos);
+        addToWindow(IDLE, startNanoTime, endNanoTime);
+        //等待返回后仍视为空闲，直到批次开始
+        idleSince.lazySet(endNanoTime);
+    }
+
+    /**
+     * Mark the start of a batch, so that it is counted as busy time while it is being handled.
+     *
+     * @param startNanoTime when handling of the batch started.
+     */
+    void beginBatch(final long startNanoTime) {
+        busySince.lazySet(startNanoTime);
+        idleSince.lazySet(NONE);
+    }
+
+    /**
+     * @return the cursor that lags are measured against, to be read before a batch is handled.
+     */
+    long readCursor() {
+        return cursor.getCursor();
+    }
+
+    /**
+     * Record a batch handled by the processor.
+     *
+     * @param previousSequence the sequence of the processor before the batch.
+     * @param startCursor      the cursor, from {@link #readCursor()}, before the batch was handled.
+     * @param batchSize        number of events in the batch.
+     * @param startNanoTime    when handling of the batch started.
+     * @param endNanoTime      when handling of the batch ended.
+     */
+    void recordBatch(
+        final long previousSequence,
+        final long startCursor,
+        final long batchSize,
+        final long startNanoTime,
+        final long endNanoTime) {
+        final long handlerNanos = endNanoTime - startNanoTime;
+        //游标在处理前读取，处理期间发布的事件不计入落后量
+        final long lag = startCursor - previousSequence;
+        lastLag.lazySet(lag);
+        lags.recordSingleWriter(lag);
+        batchSizes.recordSingleWriter(batchSize);
+        handlerTimes.recordSingleWriter(handlerNanos);
+        eventCount.lazySet(eventCount.get() + batchSize);
+        batchCount.lazySet(batchCount.get() + 1);
+        busyNanos.lazySet(busyNanos.get() + handlerNanos);
+        addToWindow(BUSY, startNanoTime, endNanoTime);
+        idleSince.lazySet(endNanoTime);
+        busySince.lazySet(NONE);
+    }
+
+    private void addToWindow(final int kind, final long startNanoTime, final long endNanoTime) {
+        final long endEpoch = epochOf(endNanoTime);
+        //早于窗口的部分不计入
+        final long start = Math.max(startNanoTime, (endEpoch - WINDOW_SLOTS + 1) * slotNanos);
+        for (long epoch = epochOf(start); epoch <= endEpoch; epoch++) {
+            final long slotStart = epoch * slotNanos;
+            final long nanos = Math.min(endNanoTime, slotStart + slotNanos) - Math.max(start, slotStart);
+            if (nanos > 0) {
+                addToSlot(kind, epoch, nanos);
+            }
+        }
+    }
+
+    private void addToSlot(final int kind, final long epoch, final long nanos) {
+        final int slot = (int) (epoch & (WINDOW_SLOTS - 1));
+        if (slotEpochs.get(slot) != epoch) {
+            //槽位属于已经滑出窗口的时间片，清零后复用
+            slotNanoTimes.lazySet(slot * 2 + BUSY, 0L);
+            slotNanoTimes.lazySet(slot * 2 + IDLE, 0L);
+            slotEpochs.lazySet(slot, epoch);
+        }
+        final int index = slot * 2 + kind;
+        slotNanoTimes.lazySet(index, slotNanoTimes.get(index) + nanos);
+    }
+
+    private long epochOf(final long nanoTime) {
+        //System.nanoTime()可能为负，向下取整
+        final long epoch = nanoTime / slotNanos;
+        return nanoTime < 0 && epoch * slotNanos != nanoTime ? epoch - 1 : epoch;
+    }
+
+    public long getBatchCount()
+    {
+        return batchCount.get();
+    }
+
+    public long getEventCount()
+    {
+        return eventCount.get();
+    }
+
+    /**
+     * @return the lag behind the cursor at the start of the most recent batch.
+     */
+    public long getLastLag()
+    {
+        return lastLag.get();
+    }
+
+    /**
+     * @return the total time spent handling events.
+     */
+    public long getBusyNanos()
+    {
+        return busyNanos.get();
+    }
+
+    /**
+     * @return the total time spent waiting for events.
+     */
+    public long getIdleNanos()
+    {
+        return idleNanos.get();
+    }
+
+    /**
+     * Get the fraction of the rolling window that the processor spent handling events rather than waiting for them,
+     * counting the batch or wait in progress up to now.
+     *
+     * @return the utilisation between <code>0</code> and <code>1</code>, or <code>0</code> if nothing was recorded
+     * during the window.
+     */
+    public double getUtilisation() {
+        final long now = System.nanoTime();
+        final long currentEpoch = epochOf(now);
+        long busy = 0;
+        long idle = 0;
+        for (int slot = 0; slot < WINDOW_SLOTS; slot++) {
+            final long age = currentEpoch - slotEpochs.get(slot);
+            if (age >= 0 && age < WINDOW_SLOTS) {
+                busy += slotNanoTimes.get(slot * 2 + BUSY);
+                idle += slotNanoTimes.get(slot * 2 + IDLE);
+            }
+        }
+
+        //进行中的区间只在结束时才写入槽位，这里计到当前时间
+        final long windowStart = (currentEpoch - WINDOW_SLOTS + 1) * slotNanos;
+        final long busyStart = busySince.get();
+        final long idleStart = idleSince.get();
+        if (busyStart != NONE && (idleStart == NONE || busyStart > idleStart)) {
+            busy += Math.max(0L, now - Math.max(busyStart, windowStart));
+        }
+        else if (idleStart != NONE) {
+            idle += Math.max(0L, now - Math.max(idleStart, windowStart));
+        }
+
+        final long total = busy + idle;
+        return total > 0 ? Math.min(1.0, (double) busy / total) : 0.0;
+    }
+
+    public PowerOfTwoHistogram getBatchSizes()
+    {
+        return batchSizes;
+    }
+
+    public PowerOfTwoHistogram getWaitTimes()
+    {
+        return waitTimes;
+    }
+
+    public PowerOfTwoHistogram getHandlerTimes()
+    {
+        return handlerTimes;
+    }
+
+    public PowerOfTwoHistogram getLags()
+    {
+        return lags;
+    }
+
+    @Override
+    public String toString() {
+        return "ProcessorMetrics{" +
+            "batchCount=" + getBatchCount() +
+            ", eventCount=" + getEventCount() +
+            ", lastLag=" + getLastLag() +
+            ", utilisation=" + getUtilisation() +
+            ", batchSizes=" + batchSizes +
+            ", waitTimes=" + waitTimes +
+            ", handlerTimes=" + handlerTimes +
+            '}';
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * A {@link WaitStrategy} that blocks each barrier on the sequences it actually depends on, rather than on the
+ * cursor.  Event processors signal it as their own sequence advances, so that only the stages depending on them
+ * are woken, while publishers only wake the stages that depend directly on the cursor.
+ *
+ * 感知消费进度的等待策略，消费者推进序号后只唤醒依赖它的消费者
+ */
+public interface ProgressAwareWaitStrategy extends WaitStrategy {
+    /**
+     * Wake the waiters of any barrier depending on <code>sequence</code>, called by an event processor after it has
+     * advanced its sequence, and by a barrier on its own dependent sequence when it is alerted.
+     *
+     * @param sequence that has advanced.
+     */
+    void signalProgressWhenBlocking(Sequence sequence);
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import sun.misc.Unsafe;
+
+import com.lmax.disruptor.util.Util;
+
+/**
+ * <p>A {@link Sequence} that exposes only the contiguous prefix of sequences that have been completed, regardless
+ * of the order in which they were completed.</p>
+ *
+ * <p>Used by a {@link WorkerPool} running in ordered mode: the workers complete sequences out of order, each marking
+ * its sequence with {@link #markCompleted(long)}, and this sequence advances over every run of completed sequences.
+ * Downstream barriers gating on it therefore only ever observe events in the order they were published.</p>
+ *
+ * <p>Completion is tracked with one flag per ring buffer slot, using the same availability flag scheme as the
+ * {@link MultiProducerSequencer}, so no locks or queues are involved.  Any completing thread may advance the
+ * sequence on behalf of the others.</p>
+ *
+ * 乱序完成、顺序可见的序号
+ */
+public final class ResequencingSequence extends Sequence {
+    private static final Unsafe UNSAFE = Util.getUnsafe();
+    private static final long BASE = UNSAFE.arrayBaseOffset(int[].class);
+    private static final long SCALE = UNSAFE.arrayIndexScale(int[].class);
+
+    /**
+     * 每个槽位的完成标志
+     */
+    private final int[] completedBuffer;
+    private final int indexMask;
+    private final int indexShift;
+
+    /**
+     * Create a resequencing sequence for a ring buffer of the given size, initialised to
+     * {@link Sequencer#INITIAL_CURSOR_VALUE}.
+     *
+     * @param bufferSize the size of the ring buffer whose sequences will be completed, must be a power of 2.
+     */
+    public ResequencingSequence(final int bufferSize) {
+        super(Sequencer.INITIAL_CURSOR_VALUE);
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must not be less than 1");
+        }
+        if (Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+
+        completedBuffer = new int[bufferSize];
+        indexMask = bufferSize - 1;
+        indexShift = Util.log2(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            setCompletedBufferValue(i, -1);
+        }
+    }
+
+    /**
+     * Mark a sequence as completed and advance this sequence over any completed sequences that now
+     * follow it contiguously, including ones completed earlier by other threads.
+     *
+     * @param sequence that has been completed.
+     */
+    public void markCompleted(final long sequence) {
+        // Volatile store so that it can not be reordered with the read of the current value below.  Either this
+        // thread sees the prefix reach sequence - 1, or the thread that moved it there sees this flag.
+        setCompletedBufferValue(calculateIndex(sequence), calculateCompletedFlag(sequence));
+
+        long current = get();
+        while (true) {
+            final long next = current + 1;
+            if (!isCompleted(next)) {
+                return;
+            }
+
+            if (compareAndSet(current, next)) {
+                current = next;
+            }
+            else {
+                current = get();
+            }
+        }
+    }
+
+    /**
+     * Confirms if a sequence has been marked as completed, it may not yet be part of the contiguous prefix.
+     *
+     * @param sequence to check.
+     * @return true if the sequence has been completed.
+     */
+    public boolean isCompleted(final long sequence) {
+        final long bufferAddress = (calculateIndex(sequence) * SCALE) + BASE;
+        return UNSAFE.getIntVolatile(completedBuffer, bufferAddress) == calculateCompletedFlag(sequence);
+    }
+
+    private void setCompletedBufferValue(final int index, final int flag) {
+        final long bufferAddress = (index * SCALE) + BASE;
+        UNSAFE.putIntVolatile(completedBuffer, bufferAddress, flag);
+    }
+
+    private int calculateCompletedFlag(final long sequence)
+    {
+        return (int) (sequence >>> indexShift);
+    }
+
+    private int calculateIndex(final long sequence)
+    {
+        return ((int) sequence) & indexMask;
+    }
+}
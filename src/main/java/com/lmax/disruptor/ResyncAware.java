@@ -0,0 +1,21 @@
+package com.lmax.disruptor;
+
+/**
+ * 消费者因落后过多被摘除后，重新追上游标时回调此API。
+ * EventHandler也可以实现此接口，例如从日志中补齐被跳过的事件
+ *
+ * @author ;
+ */
+public interface ResyncAware {
+
+    /**
+     * Called on the processor thread after it was detached by a {@link ConsumerLagMonitor} and has rejoined the
+     * ring buffer.  Events from <code>fromSequence</code> to <code>toSequence</code> inclusive were not delivered and
+     * may have been overwritten, replay them from a journal if they are needed.
+     *
+     * @param fromSequence first sequence that was skipped.
+     * @param toSequence   last sequence that was skipped.
+     * @throws Exception if the handler fails to catch up.
+     */
+    void onResync(long fromSequence, long toSequence) throws Exception;
+}
@@ -21,6 +21,8 @@ import sun.misc.Unsafe;
 import com.lmax.disruptor.dsl.ProducerType;
 import com.lmax.disruptor.util.Util;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * RingBufferPad填充，避免伪共享
  */
@@ -89,6 +91,14 @@ abstract class RingBufferFields<E> extends RingBufferPad {
      * sequencer
      */
     protected final Sequencer sequencer;
+    /**
+     * 延迟追踪，未开启时为null
+     */
+    protected LatencyTracer latencyTracer;
+    /**
+     * 容量预测，未开启时为null
+     */
+    protected CapacityForecaster capacityForecaster;
 
     /**
      * 构造函数
@@ -390,6 +400,10 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
     public void resetTo(long sequence) {
         sequencer.claim(sequence);
         sequencer.publish(sequence);
+        final CapacityForecaster forecaster = capacityForecaster;
+        if (forecaster != null) {
+            forecaster.onPublish();
+        }
     }
 
     /**
@@ -431,6 +445,21 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
         sequencer.addGatingSequences(gatingSequences);
     }
 
+    /**
+     * Add a gating sequence at the position given by <code>position</code> rather than at the cursor.
+     *
+     * @param gatingSequence to add.
+     * @param position       to set the sequence to, read again once the sequence is gating.
+     */
+    void addGatingSequence(final Sequence gatingSequence, final Cursored position) {
+        if (sequencer instanceof AbstractSequencer) {
+            ((AbstractSequencer) sequencer).addGatingSequence(gatingSequence, position);
+        }
+        else {
+            sequencer.addGatingSequences(gatingSequence);
+        }
+    }
+
     /**
      * Get the minimum sequence value from all of the gating sequences
      * added to this ringBuffer.
@@ -892,7 +921,7 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
     @Override
     public void publish(long sequence)
     {
-        sequencer.publish(sequence);
+        publishSequence(sequence);
     }
 
     /**
@@ -906,7 +935,102 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
     @Override
     public void publish(long lo, long hi)
     {
-        sequencer.publish(lo, hi);
+        publishSequences(lo, hi);
+    }
+
+    /**
+     * @return the {@link WaitStrategy} that consumers of this ring buffer wait with, or <code>null</code> if the
+     * sequencer does not expose it.
+     */
+    public WaitStrategy getWaitStrategy() {
+        if (sequencer instanceof AbstractSequencer) {
+            return ((AbstractSequencer) sequencer).getWaitStrategy();
+        }
+        return null;
+    }
+
+    /**
+     * Start stamping the publish time of sampled sequences for a {@link LatencyTracer}, must be called before any
+     * events are published.  Has no effect beyond returning the existing tracer if tracing is already enabled.
+     *
+     * @param sampleInterval trace every sampleInterval-th sequence, must be a power of 2, 1 traces every event.
+     * @return the tracer stamping this ring buffer.
+     */
+    public synchronized LatencyTracer enableLatencyTracing(final int sampleInterval) {
+        if (latencyTracer == null) {
+            latencyTracer = new LatencyTracer(bufferSize, sampleInterval);
+        }
+        return latencyTracer;
+    }
+
+    /**
+     * @return the tracer stamping this ring buffer, or <code>null</code> if latency tracing has not been enabled.
+     */
+    public LatencyTracer getLatencyTracer()
+    {
+        return latencyTracer;
+    }
+
+    /**
+     * Start estimating how soon this ring buffer will fill up and how long its backlog will take to drain, see
+     * {@link CapacityForecaster}, must be called before any events are published.  The rates are sampled on
+     * publication, timed by the shared {@link Ticker}.  Has no effect beyond returning the existing forecaster if
+     * forecasting is already enabled.
+     *
+     * @param sampleInterval minimum time between samples of the rates.
+     * @param timeConstant   over which the rates are averaged, must not be less than the sample interval.
+     * @param units          of the sample interval and time constant.
+     * @return the forecaster of this ring buffer.
+     */
+    public synchronized CapacityForecaster enableCapacityForecast(
+        final long sampleInterval,
+        final long timeConstant,
+        final TimeUnit units) {
+        if (capacityForecaster == null) {
+            capacityForecaster = new CapacityForecaster(this, Ticker.shared(), sampleInterval, timeConstant, units);
+        }
+        return capacityForecaster;
+    }
+
+    /**
+     * @return the forecaster of this ring buffer, or <code>null</code> if forecasting has not been enabled.
+     */
+    public CapacityForecaster getCapacityForecaster()
+    {
+        return capacityForecaster;
+    }
+
+    /**
+     * Start counting the claims made by publishers and how often they had to wait, see {@link SequencerStats}.  With
+     * a single producer there is no contention, so only the gating cache misses and the parks while the ring is full
+     * are counted.
+     *
+     * @throws UnsupportedOperationException if this ring buffer uses a custom {@link Sequencer}.
+     */
+    public void enableSequencerStats() {
+        if (sequencer instanceof MultiProducerSequencer) {
+            ((MultiProducerSequencer) sequencer).enableStats();
+        }
+        else if (sequencer instanceof SingleProducerSequencer) {
+            ((SingleProducerSequencer) sequencer).enableStats();
+        }
+        else {
+            throw new UnsupportedOperationException("Sequencer stats are not recorded by " + sequencer);
+        }
+    }
+
+    /**
+     * @return a snapshot of the claims made by publishers, or <code>null</code> if {@link #enableSequencerStats()}
+     * has not been called.
+     */
+    public SequencerStats getSequencerStats() {
+        if (sequencer instanceof MultiProducerSequencer) {
+            return ((MultiProducerSequencer) sequencer).getStats();
+        }
+        if (sequencer instanceof SingleProducerSequencer) {
+            return ((SingleProducerSequencer) sequencer).getStats();
+        }
+        return null;
     }
 
     /**
@@ -976,6 +1100,30 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
         }
     }
 
+    private void publishSequence(final long sequence) {
+        final LatencyTracer tracer = latencyTracer;
+        if (tracer != null) {
+            tracer.stamp(sequence);
+        }
+        sequencer.publish(sequence);
+        final CapacityForecaster forecaster = capacityForecaster;
+        if (forecaster != null) {
+            forecaster.onPublish();
+        }
+    }
+
+    private void publishSequences(final long lo, final long hi) {
+        final LatencyTracer tracer = latencyTracer;
+        if (tracer != null) {
+            tracer.stamp(lo, hi);
+        }
+        sequencer.publish(lo, hi);
+        final CapacityForecaster forecaster = capacityForecaster;
+        if (forecaster != null) {
+            forecaster.onPublish();
+        }
+    }
+
     /**
      * translateAndPublis其实就是结合了next操作和publish
      * @param translator 用户自行实现的translator
@@ -986,7 +1134,7 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
             translator.translateTo(get(sequence), sequence);
         }
         finally {
-            sequencer.publish(sequence);
+            publishSequence(sequence);
         }
     }
 
@@ -995,7 +1143,7 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
             translator.translateTo(get(sequence), sequence, arg0);
         }
         finally {
-            sequencer.publish(sequence);
+            publishSequence(sequence);
         }
     }
 
@@ -1007,7 +1155,7 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
         }
         finally
         {
-            sequencer.publish(sequence);
+            publishSequence(sequence);
         }
     }
 
@@ -1021,7 +1169,7 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
         }
         finally
         {
-            sequencer.publish(sequence);
+            publishSequence(sequence);
         }
     }
 
@@ -1033,7 +1181,7 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
         }
         finally
         {
-            sequencer.publish(sequence);
+            publishSequence(sequence);
         }
     }
 
@@ -1054,7 +1202,7 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
         }
         finally
         {
-            sequencer.publish(initialSequence, finalSequence);
+            publishSequences(initialSequence, finalSequence);
         }
     }
 
@@ -1074,7 +1222,7 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
         }
         finally
         {
-            sequencer.publish(initialSequence, finalSequence);
+            publishSequences(initialSequence, finalSequence);
         }
     }
 
@@ -1095,7 +1243,7 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
         }
         finally
         {
-            sequencer.publish(initialSequence, finalSequence);
+            publishSequences(initialSequence, finalSequence);
         }
     }
 
@@ -1116,7 +1264,7 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
         }
         finally
         {
-            sequencer.publish(initialSequence, finalSequence);
+            publishSequences(initialSequence, finalSequence);
         }
     }
 
@@ -1136,7 +1284,7 @@ public final class RingBuffer<E> extends RingBufferFields<E> implements Cursored
         }
         finally
         {
-            sequencer.publish(initialSequence, finalSequence);
+            publishSequences(initialSequence, finalSequence);
         }
     }
 
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * <p>A snapshot of the contention between publishers claiming sequences from a {@link MultiProducerSequencer} or
+ * {@link SingleProducerSequencer}, taken with {@link RingBuffer#getSequencerStats()} once
+ * {@link RingBuffer#enableSequencerStats()} has been called.  A single producer never fails a CAS.</p>
+ *
+ * <p>The counts are cumulative since stats were enabled, the difference between two snapshots can be taken with
+ * {@link #since(SequencerStats)}.  Each count is read separately, so a snapshot taken while publishers are running is
+ * not exactly consistent across counts.</p>
+ *
+ * 生产者争用情况的快照
+ */
+public final class SequencerStats {
+    private final long claims;
+    private final long claimAttempts;
+    private final long casFailures;
+    private final long gatingCacheMisses;
+    private final long fullRingParks;
+    private final long fullRingParkNanos;
+
+    public SequencerStats(
+        final long claims,
+        final long claimAttempts,
+        final long casFailures,
+        final long gatingCacheMisses,
+        final long fullRingParks,
+        final long fullRingParkNanos) {
+        this.claims = claims;
+        this.claimAttempts = claimAttempts;
+        this.casFailures = casFailures;
+        this.gatingCacheMisses = gatingCacheMisses;
+        this.fullRingParks = fullRingParks;
+        this.fullRingParkNanos = fullRingParkNanos;
+    }
+
+    /**
+     * @return the number of calls to claim sequences.
+     */
+    public long getClaims()
+    {
+        return claims;
+    }
+
+    /**
+     * @return the number of passes through the claim loop, at least one per claim.
+     */
+    public long getClaimAttempts()
+    {
+        return claimAttempts;
+    }
+
+    /**
+     * @return the number of claims that lost the race to move the cursor to another publisher and had to retry.
+     */
+    public long getCasFailures()
+    {
+        return casFailures;
+    }
+
+    /**
+     * @return the number of times the cached minimum gating sequence was stale and had to be refreshed.
+     */
+    public long getGatingCacheMisses()
+    {
+        return gatingCacheMisses;
+    }
+
+    /**
+     * @return the number of times a publisher parked because the ring buffer was full.
+     */
+    public long getFullRingParks()
+    {
+        return fullRingParks;
+    }
+
+    /**
+     * @return the total time publishers spent parked because the ring buffer was full, in nanoseconds.
+     */
+    public long getFullRingParkNanos()
+    {
+        return fullRingParkNanos;
+    }
+
+    /**
+     * @param previous snapshot taken earlier from the same ring buffer.
+     * @return the counts recorded between the previous snapshot and this one.
+     */
+    public SequencerStats since(final SequencerStats previous) {
+        return new SequencerStats(
+            claims - previous.claims,
+            claimAttempts - previous.claimAttempts,
+            casFailures - previous.casFailures,
+            gatingCacheMisses - previous.gatingCacheMisses,
+            fullRingParks - previous.fullRingParks,
+            fullRingParkNanos - previous.fullRingParkNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "SequencerStats{" +
+            "claims=" + claims +
+            ", claimAttempts=" + claimAttempts +
+            ", casFailures=" + casFailures +
+            ", gatingCacheMisses=" + gatingCacheMisses +
+            ", fullRingParks=" + fullRingParks +
+            ", fullRingParkNanos=" + fullRingParkNanos +
+            '}';
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.lmax.disruptor;
 
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.LockSupport;
 
 import com.lmax.disruptor.util.Util;
@@ -72,8 +73,21 @@ abstract class SingleProducerSequencerFields extends SingleProducerSequencerPad
  * @author ;
  */
 public final class SingleProducerSequencer extends SingleProducerSequencerFields {
+    /**
+     * 统计的计数器下标
+     */
+    private static final int CLAIMS = 0;
+    private static final int CLAIM_ATTEMPTS = 1;
+    private static final int GATING_CACHE_MISSES = 2;
+    private static final int FULL_RING_PARKS = 3;
+    private static final int FULL_RING_PARK_NANOS = 4;
+
     //填充
     protected long p1, p2, p3, p4, p5, p6, p7;
+    /**
+     * 统计，未开启时为null，只由生产者线程写入
+     */
+    private volatile AtomicLongArray stats;
 
     /**
      * Construct a Sequencer with the selected wait strategy and buffer size.
@@ -142,6 +156,11 @@ public final class SingleProducerSequencer extends SingleProducerSequencerFields
             throw new IllegalArgumentException("n must be > 0 and < bufferSize");
         }
 
+        final AtomicLongArray stats = this.stats;
+        if (null != stats) {
+            return nextWithStats(n, stats);
+        }
+
         long nextValue = this.nextValue;
 
         long nextSequence = nextValue + n;
@@ -158,8 +177,14 @@ public final class SingleProducerSequencer extends SingleProducerSequencerFields
             long minSequence;
             //自旋操作。找到消费者中最小的消费者的值
             //生产者序号大于消费者最小的序号，就挂起。避免数据被覆盖
-            while (wrapPoint > (minSequence = Util.getMinimumSequence(gatingSequences, nextValue))) {
-                LockSupport.parkNanos(1L); // TODO: Use waitStrategy to spin?
+            if (wrapPoint > (minSequence = Util.getMinimumSequence(gatingSequences, nextValue))) {
+                //只有ringBuffer满时才计时
+                final long stallStart = System.nanoTime();
+                do {
+                    LockSupport.parkNanos(1L); // TODO: Use waitStrategy to spin?
+                }
+                while (wrapPoint > (minSequence = Util.getMinimumSequence(gatingSequences, nextValue)));
+                FlightRecorderEvents.producerStalled(System.nanoTime() - stallStart, nextSequence, n);
             }
             //更新cacheValue
             this.cachedValue = minSequence;
@@ -169,6 +194,84 @@ public final class SingleProducerSequencer extends SingleProducerSequencerFields
         return nextSequence;
     }
 
+    /**
+     * Same as {@link #next(int)}, counting the gating cache misses and the parks while the ring is full.  There is a
+     * single writer, so the counters are updated with ordered stores.
+     */
+    private long nextWithStats(final int n, final AtomicLongArray stats) {
+        long nextValue = this.nextValue;
+
+        long nextSequence = nextValue + n;
+        long wrapPoint = nextSequence - bufferSize;
+        long cachedGatingSequence = this.cachedValue;
+        long parks = 0;
+        long parkNanos = 0;
+
+        if (wrapPoint > cachedGatingSequence || cachedGatingSequence > nextValue) {
+            increment(stats, GATING_CACHE_MISSES, 1);
+            cursor.setVolatile(nextValue);  // StoreLoad fence
+
+            long minSequence;
+            if (wrapPoint > (minSequence = Util.getMinimumSequence(gatingSequences, nextValue))) {
+                //与next(int)一样按经过的时间统计
+                final long stallStart = System.nanoTime();
+                do {
+                    LockSupport.parkNanos(1L);
+                    parks++;
+                }
+                while (wrapPoint > (minSequence = Util.getMinimumSequence(gatingSequences, nextValue)));
+                parkNanos = System.nanoTime() - stallStart;
+            }
+            this.cachedValue = minSequence;
+        }
+
+        increment(stats, CLAIMS, 1);
+        increment(stats, CLAIM_ATTEMPTS, parks + 1);
+        if (0 != parks) {
+            increment(stats, FULL_RING_PARKS, parks);
+            increment(stats, FULL_RING_PARK_NANOS, parkNanos);
+            FlightRecorderEvents.producerStalled(parkNanos, nextSequence, n);
+        }
+
+        this.nextValue = nextSequence;
+        return nextSequence;
+    }
+
+    private static void increment(final AtomicLongArray stats, final int index, final long delta) {
+        stats.lazySet(index, stats.get(index) + delta);
+    }
+
+    /**
+     * Start counting the claims made in {@link #next(int)}, has no effect if already started.  Must be called from
+     * the publishing thread or before it starts publishing.
+     */
+    public synchronized void enableStats() {
+        if (null == stats) {
+            stats = new AtomicLongArray(FULL_RING_PARK_NANOS + 1);
+        }
+    }
+
+    /**
+     * With a single producer there is nothing to contend with, so {@link SequencerStats#getCasFailures()} is always
+     * 0.
+     *
+     * @return a snapshot of the claims made, or <code>null</code> if stats have not been enabled.
+     */
+    public SequencerStats getStats() {
+        final AtomicLongArray stats = this.stats;
+        if (null == stats) {
+            return null;
+        }
+
+        return new SequencerStats(
+            stats.get(CLAIMS),
+            stats.get(CLAIM_ATTEMPTS),
+            0L,
+            stats.get(GATING_CACHE_MISSES),
+            stats.get(FULL_RING_PARKS),
+            stats.get(FULL_RING_PARK_NANOS));
+    }
+
     /**
      * @see Sequencer#tryNext()
      */
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Idle strategy that parks for a fixed period when idle, for consumers where CPU matters far more than latency.
+ *
+ * 挂起固定时间的空闲策略
+ */
+public final class SleepingIdleStrategy implements IdleStrategy {
+    private final long parkNanos;
+
+    /**
+     * @param parkTime to park for when idle.
+     * @param units    of parkTime.
+     */
+    public SleepingIdleStrategy(final long parkTime, final TimeUnit units) {
+        parkNanos = units.toNanos(parkTime);
+        if (parkNanos < 1) {
+            throw new IllegalArgumentException("parkTime must be positive");
+        }
+    }
+
+    @Override
+    public void idle(final int workCount) {
+        if (workCount > 0) {
+            return;
+        }
+
+        LockSupport.parkNanos(parkNanos);
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public String toString() {
+        return "SleepingIdleStrategy{" +
+            "parkNanos=" + parkNanos +
+            '}';
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Finds the events that a handler took unusually long to handle.  A {@link BatchEventProcessor} given a sampler
+ * with {@link BatchEventProcessor#setSlowEventSampler(SlowEventSampler)} times every call to
+ * {@link EventHandler#onEvent(Object, long, boolean)}, and each call that takes at least the threshold is kept as a
+ * {@link SlowEvent} in a small ring holding the most recent ones.</p>
+ *
+ * <p>Calls are timed with the coarse clock of a {@link Ticker} rather than {@link System#nanoTime()}, so timing an
+ * event costs two volatile reads, and durations are only accurate to one tick.  The threshold should therefore be
+ * several ticks long.  Recording a slow event allocates, which is negligible next to the time the event took.  A
+ * sampler may be shared by several processors.</p>
+ *
+ * @param <T> event handled by the sampled processors.
+ *
+ * 记录处理耗时超过阈值的事件
+ */
+public final class SlowEventSampler<T> {
+    /**
+     * Summarises a slow event when it is recorded, while the processor still owns the event.
+     *
+     * @param <T> event to summarise.
+     */
+    public interface Summarizer<T> {
+        /**
+         * @param event    that was slow to handle.
+         * @param sequence of the event.
+         * @return a description of the event for later inspection.
+         */
+        String summarize(T event, long sequence);
+    }
+
+    private final Ticker ticker;
+    private final long thresholdNanos;
+    private final Summarizer<? super T> summarizer;
+    private final AtomicReferenceArray<SlowEvent> slowEvents;
+    private final int indexMask;
+    /**
+     * 已记录的慢事件总数，也是下一个写入的位置
+     */
+    private final AtomicLong slowEventCount = new AtomicLong();
+
+    /**
+     * Create a sampler timing events with the shared {@link Ticker}.
+     *
+     * @param threshold  from which an event is recorded.
+     * @param units      of the threshold.
+     * @param capacity   the number of most recent slow events kept, must be a power of 2.
+     * @param summarizer to describe slow events, or <code>null</code> to record only their sequence.
+     */
+    public SlowEventSampler(
+        final long threshold,
+        final TimeUnit units,
+        final int capacity,
+        final Summarizer<? super T> summarizer) {
+        this(Ticker.shared(), threshold, units, capacity, summarizer);
+    }
+
+    /**
+     * @param ticker     whose coarse clock times the events, it is started if needed.  It must not have been stopped.
+     * @param threshold  from which an event is recorded.
+     * @param units      of the threshold.
+     * @param capacity   the number of most recent slow events kept, must be a power of 2.
+     * @param summarizer to describe slow events, or <code>null</code> to record only their sequence.
+     * @throws IllegalStateException if the ticker has been stopped, as its clock no longer advances.
+     */
+    public SlowEventSampler(
+        final Ticker ticker,
+        final long threshold,
+        final TimeUnit units,
+        final int capacity,
+        final Summarizer<? super T> summarizer) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must not be less than 1");
+        }
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of 2");
+        }
+
+        this.ticker = ticker;
+        this.thresholdNanos = units.toNanos(threshold);
+        this.summarizer = summarizer;
+        this.slowEvents = new AtomicReferenceArray<>(capacity);
+        this.indexMask = capacity - 1;
+        ticker.start();
+    }
+
+    /**
+     * @return the coarse time to pass to {@link #sample(Object, long, long, long)}.
+     */
+    public long nanoTime()
+    {
+        return ticker.nanoTime();
+    }
+
+    /**
+     * Record the event if handling it took at least the threshold.
+     *
+     * @param event         that was handled.
+     * @param sequence      of the event.
+     * @param startNanoTime when handling started.
+     * @param endNanoTime   when handling ended.
+     */
+    public void sample(final T event, final long sequence, final long startNanoTime, final long endNanoTime) {
+        if (endNanoTime - startNanoTime >= thresholdNanos) {
+            record(event, sequence, startNanoTime, endNanoTime);
+        }
+    }
+
+    private void record(final T event, final long sequence, final long startNanoTime, final long endNanoTime) {
+        String summary = null;
+        if (summarizer != null) {
+            try {
+                summary = summarizer.summarize(event, sequence);
+            }
+            catch (final Throwable e) {
+                summary = "Failed to summarize: " + e;
+            }
+        }
+
+        final long index = slowEventCount.getAndIncrement();
+        final SlowEvent slowEvent = new SlowEvent(
+            index, sequence, endNanoTime - startNanoTime, endNanoTime, Thread.currentThread().getName(), summary);
+        slowEvents.lazySet((int) index & indexMask, slowEvent);
+    }
+
+    /**
+     * @return the number of slow events recorded, including those no longer kept.
+     */
+    public long getSlowEventCount()
+    {
+        return slowEventCount.get();
+    }
+
+    /**
+     * Slow events still being written, or already overwritten by a later lap of the ring while reading, are left out.
+     *
+     * @return the most recent slow events, oldest first.
+     */
+    public List<SlowEvent> getSlowEvents() {
+        final long count = slowEventCount.get();
+        final int capacity = slowEvents.length();
+        final List<SlowEvent> recent = new ArrayList<>(capacity);
+        for (long i = Math.max(0L, count - capacity); i < count; i++) {
+            final SlowEvent slowEvent = slowEvents.get((int) i & indexMask);
+            //写入者可能尚未完成写入，或槽位已被下一圈覆盖
+            if (slowEvent != null && slowEvent.index == i) {
+                recent.add(slowEvent);
+            }
+        }
+        return recent;
+    }
+
+    public long getThresholdNanos()
+    {
+        return thresholdNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SlowEventSampler{" +
+            "thresholdNanos=" + thresholdNanos +
+            ", slowEventCount=" + getSlowEventCount() +
+            '}';
+    }
+
+    /**
+     * An event that took at least the threshold to handle.
+     */
+    public static final class SlowEvent {
+        /**
+         * 在采样器中的记录序号
+         */
+        private final long index;
+        private final long sequence;
+        private final long durationNanos;
+        private final long nanoTime;
+        private final String threadName;
+        private final String summary;
+
+        SlowEvent(
+            final long index,
+            final long sequence,
+            final long durationNanos,
+            final long nanoTime,
+            final String threadName,
+            final String summary) {
+            this.index = index;
+            this.sequence = sequence;
+            this.durationNanos = durationNanos;
+            this.nanoTime = nanoTime;
+            this.threadName = threadName;
+            this.summary = summary;
+        }
+
+        public long getSequence()
+        {
+            return sequence;
+        }
+
+        /**
+         * @return the time taken to handle the event, accurate to one tick.
+         */
+        public long getDurationNanos()
+        {
+            return durationNanos;
+        }
+
+        /**
+         * @return the coarse {@link System#nanoTime()} at which handling ended.
+         */
+        public long getNanoTime()
+        {
+            return nanoTime;
+        }
+
+        public String getThreadName()
+        {
+            return threadName;
+        }
+
+        /**
+         * @return the summary of the event, or <code>null</code> if the sampler has no summarizer.
+         */
+        public String getSummary()
+        {
+            return summary;
+        }
+
+        @Override
+        public String toString() {
+            return "SlowEvent{" +
+                "sequence=" + sequence +
+                ", durationNanos=" + durationNanos +
+                ", threadName='" + threadName + '\'' +
+                ", summary='" + summary + '\'' +
+                '}';
+        }
+    }
+}
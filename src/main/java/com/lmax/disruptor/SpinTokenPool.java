@@ -0,0 +1,116 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A fixed number of spin tokens shared by {@link CooperativeSpinWaitStrategy}s, limiting how many consumers may
+ * busy spin at once however many disruptors are running.</p>
+ *
+ * <p>The pool also counts consumers that wanted a token but found none, so that idle token holders hand theirs back
+ * sooner while there is demand.  Tokens thereby migrate to the consumers that are busiest.</p>
+ *
+ * 全局共享的自旋令牌池
+ */
+public final class SpinTokenPool {
+    private static final SpinTokenPool SHARED =
+        new SpinTokenPool(Integer.getInteger("disruptor.spinTokens", Math.max(1, Runtime.getRuntime().availableProcessors() / 4)));
+
+    private final int tokens;
+    private final AtomicInteger available;
+    private final AtomicInteger demand = new AtomicInteger();
+
+    /**
+     * @param tokens number of consumers that may spin at the same time.
+     */
+    public SpinTokenPool(final int tokens) {
+        if (tokens < 0) {
+            throw new IllegalArgumentException("tokens must not be negative");
+        }
+
+        this.tokens = tokens;
+        this.available = new AtomicInteger(tokens);
+    }
+
+    /**
+     * The pool shared by the whole JVM, sized by the <code>disruptor.spinTokens</code> system property and defaulting
+     * to a quarter of the available processors.
+     *
+     * @return the JVM wide pool.
+     */
+    public static SpinTokenPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return true if a token was taken, it must later be given back with {@link #release()}.
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = available.get();
+            if (current == 0) {
+                return false;
+            }
+        }
+        while (!available.compareAndSet(current, current - 1));
+
+        return true;
+    }
+
+    /**
+     * Give back a token taken with {@link #tryAcquire()}.
+     */
+    public void release() {
+        available.incrementAndGet();
+    }
+
+    /**
+     * @return the number of tokens not currently held.
+     */
+    public int getAvailable() {
+        return available.get();
+    }
+
+    /**
+     * @return the number of tokens in the pool.
+     */
+    public int getTokens() {
+        return tokens;
+    }
+
+    void addDemand() {
+        demand.incrementAndGet();
+    }
+
+    void removeDemand() {
+        demand.decrementAndGet();
+    }
+
+    boolean hasDemand() {
+        return demand.get() > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SpinTokenPool{" +
+            "tokens=" + tokens +
+            ", available=" + available +
+            ", demand=" + demand +
+            '}';
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.Util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>A fixed set of counters incremented by many threads, with each thread adding to one of several stripes chosen
+ * from its id so that threads rarely contend on the same cache line.  Reading a counter sums its stripes.</p>
+ *
+ * 按线程分段的计数器，减少多个生产者之间的伪共享
+ */
+final class StripedCounters {
+    /**
+     * 每个分段占用的long个数，保证分段之间不在同一缓存行
+     */
+    private static final int STRIDE = 16;
+    private static final int MAX_STRIPES = 64;
+
+    private final AtomicLongArray cells;
+    private final int stripeMask;
+
+    /**
+     * @param counters number of counters, at most {@value #STRIDE}.
+     */
+    StripedCounters(final int counters) {
+        if (counters < 1 || counters > STRIDE) {
+            throw new IllegalArgumentException("counters must be between 1 and " + STRIDE);
+        }
+        final int stripes = Math.min(MAX_STRIPES, Util.ceilingNextPowerOfTwo(Runtime.getRuntime().availableProcessors()));
+        this.stripeMask = stripes - 1;
+        this.cells = new AtomicLongArray((stripes + 1) * STRIDE);
+    }
+
+    /**
+     * @return the offset of the stripe for the current thread, to be passed to {@link #add(int, int, long)}.
+     */
+    int stripe() {
+        final long id = Thread.currentThread().getId();
+        // Skip the first stride so that the first stripe does not share a line with the array header.
+        return ((((int) (id ^ (id >>> 16)) * 0x9E3779B9) >>> 16 & stripeMask) + 1) * STRIDE;
+    }
+
+    void add(final int stripe, final int counter, final long delta)
+    {
+        cells.getAndAdd(stripe + counter, delta);
+    }
+
+    long sum(final int counter) {
+        long sum = 0;
+        for (int stripe = STRIDE, end = cells.length(); stripe < end; stripe += STRIDE) {
+            sum += cells.get(stripe + counter);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,19 @@
+package com.lmax.disruptor;
+
+/**
+ * tickHandler，每个tick周期回调一次，例如用于刷新未满的批次
+ * EventHandler也可以实现此接口，配合{@link TickingBlockingWaitStrategy}使用
+ *
+ * @author ;
+ */
+public interface TickHandler {
+
+    /**
+     * Called once for each tick of a {@link Ticker} that has passed since the last call, on the thread of the
+     * event processor when implemented by an {@link EventHandler}.
+     *
+     * @param nanoTime the {@link System#nanoTime()} at which the tick happened.
+     * @throws Exception if the handler fails to handle the tick.
+     */
+    void onTick(long nanoTime) throws Exception;
+}
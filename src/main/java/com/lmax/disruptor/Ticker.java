@@ -0,0 +1,197 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>A low overhead periodic timer shared by many event processors.  A single thread advances a tick count and a
+ * coarse clock at a fixed interval, and notifies the {@link TickHandler}s registered with it.</p>
+ *
+ * <p>Event processors read the tick count, a single volatile read, to learn that time has passed, rather than each
+ * computing its own timeout around every wait.  See {@link TickingBlockingWaitStrategy}.</p>
+ *
+ * 共享的低开销定时器
+ */
+public final class Ticker {
+    private static final TickHandler[] NO_HANDLERS = new TickHandler[0];
+    private static final Ticker SHARED = new Ticker(1, TimeUnit.MILLISECONDS, DaemonThreadFactory.INSTANCE);
+
+    private final long tickNanos;
+    private final ThreadFactory threadFactory;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean running = true;
+    private volatile long tickCount = 0;
+    private volatile long nanoTime = System.nanoTime();
+    private volatile TickHandler[] tickHandlers = NO_HANDLERS;
+
+    /**
+     * @param tickInterval  time between ticks.
+     * @param units         of tickInterval.
+     * @param threadFactory to create the timer thread with, it is started on first registration.
+     */
+    public Ticker(final long tickInterval, final TimeUnit units, final ThreadFactory threadFactory) {
+        tickNanos = units.toNanos(tickInterval);
+        if (tickNanos < 1) {
+            throw new IllegalArgumentException("tickInterval must be positive");
+        }
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * @return the ticker shared by the whole JVM, ticking every millisecond on a daemon thread.
+     */
+    public static Ticker shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return the number of ticks so far.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * A coarse clock, cheaper to read than {@link System#nanoTime()} and at most one tick out of date.
+     *
+     * @return the {@link System#nanoTime()} of the latest tick.
+     */
+    public long nanoTime() {
+        return nanoTime;
+    }
+
+    /**
+     * @return the time between ticks in nanoseconds.
+     */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Register a handler to be called on the timer thread at every tick, starting the timer thread if needed.
+     * Handlers must be quick and must not throw.
+     *
+     * @param tickHandler to call at every tick.
+     * @throws IllegalStateException if the ticker has been stopped.
+     */
+    public synchronized void register(final TickHandler tickHandler) {
+        final TickHandler[] current = tickHandlers;
+        final TickHandler[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = tickHandler;
+        tickHandlers = updated;
+
+        start();
+    }
+
+    /**
+     * Remove a handler registered with {@link #register(TickHandler)}, so that neither it nor what it refers to is
+     * kept alive by this ticker.  The timer thread keeps running.
+     *
+     * @param tickHandler to stop calling.
+     * @return <code>true</code> if the handler was registered.
+     */
+    public synchronized boolean unregister(final TickHandler tickHandler) {
+        final TickHandler[] current = tickHandlers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == tickHandler) {
+                final TickHandler[] updated = new TickHandler[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                tickHandlers = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getHandlerCount() {
+        return tickHandlers.length;
+    }
+
+    /**
+     * Stop the timer thread.  Must not be called on the shared ticker.
+     */
+    public void stop() {
+        if (this == SHARED) {
+            throw new IllegalStateException("The shared ticker can not be stopped");
+        }
+        running = false;
+    }
+
+    /**
+     * Start the timer thread if it is not already running, for users that only read the coarse clock and have no
+     * handler to register.
+     *
+     * @throws IllegalStateException if the ticker has been stopped, its clock would never advance again.
+     */
+    public void start() {
+        if (!running) {
+            throw new IllegalStateException("Ticker has been stopped");
+        }
+        if (started.compareAndSet(false, true)) {
+            final Thread thread = threadFactory.newThread(new Runnable() {
+                @Override
+                public void run()
+                {
+                    tick();
+                }
+            });
+            if (null == thread) {
+                throw new RuntimeException("Failed to create ticker thread");
+            }
+            thread.start();
+        }
+    }
+
+    private void tick() {
+        long deadline = System.nanoTime() + tickNanos;
+        while (running) {
+            long now = System.nanoTime();
+            while (now < deadline) {
+                LockSupport.parkNanos(this, deadline - now);
+                now = System.nanoTime();
+            }
+            // Catch up on the schedule without bursts after a long pause.
+            deadline = Math.max(deadline + tickNanos, now);
+
+            nanoTime = now;
+            tickCount++;
+            for (final TickHandler tickHandler : tickHandlers) {
+                try {
+                    tickHandler.onTick(now);
+                }
+                catch (final Throwable ignore) {
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Ticker{" +
+            "tickNanos=" + tickNanos +
+            ", tickCount=" + tickCount +
+            ", tickHandlers=" + tickHandlers.length +
+            '}';
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.ThreadHints;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>Blocking strategy that also returns at every tick of a shared {@link Ticker}, so that event processors can do
+ * periodic work such as flushing a partial batch without a timeout being computed for every wait and without a
+ * {@link TimeoutException} being thrown.</p>
+ *
+ * <p>When a tick interrupts a wait the available sequence, which may be lower than the one asked for, is returned.
+ * A {@link BatchEventProcessor} whose handler implements {@link TickHandler} then calls
+ * {@link TickHandler#onTick(long)}.  It checks the tick count once per batch, so busy processors are told about ticks
+ * too.</p>
+ *
+ * <p>The strategy stays registered with its ticker until {@link #unregister()} is called, which
+ * {@link com.lmax.disruptor.dsl.Disruptor#halt()} does for the ring buffer it owns.</p>
+ *
+ * 按tick周期返回的阻塞等待策略，替代基于超时异常的TimeoutBlockingWaitStrategy
+ */
+public final class TickingBlockingWaitStrategy implements WaitStrategy {
+    private final Lock lock = new ReentrantLock();
+    private final Condition processorNotifyCondition = lock.newCondition();
+    private final Ticker ticker;
+    private final TickHandler tickHandler = new TickHandler() {
+        @Override
+        public void onTick(final long nanoTime)
+        {
+            signalAllWhenBlocking();
+        }
+    };
+
+    /**
+     * Tick with the shared {@link Ticker}.
+     */
+    public TickingBlockingWaitStrategy() {
+        this(Ticker.shared());
+    }
+
+    /**
+     * @param ticker to return at every tick of.
+     */
+    public TickingBlockingWaitStrategy(final Ticker ticker) {
+        this.ticker = ticker;
+        ticker.register(tickHandler);
+    }
+
+    /**
+     * Stop being woken at every tick, so that the ticker, which may be the long lived shared one, no longer keeps this
+     * strategy reachable.
+     *
+     * 从ticker注销
+     */
+    public void unregister() {
+        ticker.unregister(tickHandler);
+    }
+
+    /**
+     * @return the ticker this strategy returns at every tick of.
+     */
+    public Ticker getTicker() {
+        return ticker;
+    }
+
+    @Override
+    public long waitFor(long sequence, Sequence cursorSequence, Sequence dependentSequence, SequenceBarrier barrier)
+        throws AlertException, InterruptedException {
+        final long tick = ticker.getTickCount();
+
+        long availableSequence;
+        if (cursorSequence.get() < sequence) {
+            lock.lock();
+            try {
+                while (cursorSequence.get() < sequence) {
+                    barrier.checkAlert();
+                    if (ticker.getTickCount() != tick) {
+                        return dependentSequence.get();
+                    }
+                    processorNotifyCondition.await();
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        while ((availableSequence = dependentSequence.get()) < sequence) {
+            barrier.checkAlert();
+            if (ticker.getTickCount() != tick) {
+                return availableSequence;
+            }
+            ThreadHints.onSpinWait();
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        lock.lock();
+        try {
+            processorNotifyCondition.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TickingBlockingWaitStrategy{" +
+            "ticker=" + ticker +
+            '}';
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Lock free stack of parked waiters.  A waiter pushes a node for itself before parking and a signaller pops the
+ * whole stack and unparks every thread on it, so signalling costs a single volatile read when nobody is waiting.</p>
+ *
+ * <p>A signalled node is off the stack, a waiter that has to keep waiting must push a new one.</p>
+ *
+ * 等待者的无锁栈，供ParkingWaitStrategy与HybridWaitStrategy共用
+ */
+final class WaiterStack {
+    private static final AtomicReferenceFieldUpdater<WaiterStack, Node> HEAD_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(WaiterStack.class, Node.class, "head");
+
+    private volatile Node head;
+
+    /**
+     * Register the current thread as a waiter.
+     *
+     * @return the node to check for a signal, and to cancel once done waiting.
+     */
+    Node push() {
+        final Node node = new Node(Thread.currentThread());
+        Node current;
+        do {
+            current = head;
+            node.next = current;
+        }
+        while (!HEAD_UPDATER.compareAndSet(this, current, node));
+
+        return node;
+    }
+
+    /**
+     * Pop every waiter and unpark it, stamping the nodes with the time of the signal.
+     */
+    void signalAll() {
+        if (null != head) {
+            Node node = HEAD_UPDATER.getAndSet(this, null);
+            final long signalTime = System.nanoTime();
+            while (null != node) {
+                final Node next = node.next;
+                node.signal(signalTime);
+                node = next;
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return null == head;
+    }
+
+    /**
+     * 等待者节点，一次注册使用一个节点
+     */
+    static final class Node {
+        private volatile Thread thread;
+        private volatile boolean signalled;
+        private long signalTime;
+        private Node next;
+
+        Node(final Thread thread) {
+            this.thread = thread;
+        }
+
+        boolean isSignalled() {
+            return signalled;
+        }
+
+        /**
+         * @return the {@link System#nanoTime()} at which the node was signalled, valid once it is signalled.
+         */
+        long getSignalTime() {
+            return signalTime;
+        }
+
+        void signal(final long signalTime) {
+            this.signalTime = signalTime;
+            signalled = true;
+            final Thread waiter = thread;
+            if (null != waiter) {
+                LockSupport.unpark(waiter);
+            }
+        }
+
+        void cancel() {
+            thread = null;
+        }
+    }
+}
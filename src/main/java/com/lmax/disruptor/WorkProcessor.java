@@ -45,6 +45,10 @@ public final class WorkProcessor<T> implements EventProcessor {
     private final ExceptionHandler<? super T> exceptionHandler;
 
     private final Sequence workSequence;
+    /**
+     * 有序模式下记录完成的序号，普通模式下为null
+     */
+    private final ResequencingSequence completedSequence;
 
     private final EventReleaser eventReleaser = new EventReleaser() {
         @Override
@@ -54,6 +58,18 @@ public final class WorkProcessor<T> implements EventProcessor {
         }
     };
     private final TimeoutHandler timeoutHandler;
+    /**
+     * 推进序号后需要通知的等待策略，不感知进度时为null
+     */
+    private final ProgressAwareWaitStrategy progressAwareWaitStrategy;
+    /**
+     * 可选的统计，为null时不记录
+     */
+    private ProcessorMetrics processorMetrics;
+    /**
+     * 可选的延迟追踪阶段，为null时不记录
+     */
+    private LatencyTracer.Stage latencyStage;
 
     /**
      * Construct a {@link WorkProcessor}.
@@ -71,18 +87,42 @@ public final class WorkProcessor<T> implements EventProcessor {
         final WorkHandler<? super T> workHandler,
         final ExceptionHandler<? super T> exceptionHandler,
         final Sequence workSequence) {
+        this(ringBuffer, sequenceBarrier, workHandler, exceptionHandler, workSequence, null);
+    }
+
+    /**
+     * Construct a {@link WorkProcessor} that reports every sequence it finishes with to a {@link ResequencingSequence},
+     * so that the out of order completions of a pool of workers can be exposed to later stages in order.
+     *
+     * @param ringBuffer        to which events are published.
+     * @param sequenceBarrier   on which it is waiting.
+     * @param workHandler       is the delegate to which events are dispatched.
+     * @param exceptionHandler  to be called back when an error occurs
+     * @param workSequence      from which to claim the next event to be worked on.  It should always be initialised
+     *                          as {@link Sequencer#INITIAL_CURSOR_VALUE}
+     * @param completedSequence to mark each handled sequence as completed on, may be <code>null</code>.
+     */
+    public WorkProcessor(
+        final RingBuffer<T> ringBuffer,
+        final SequenceBarrier sequenceBarrier,
+        final WorkHandler<? super T> workHandler,
+        final ExceptionHandler<? super T> exceptionHandler,
+        final Sequence workSequence,
+        final ResequencingSequence completedSequence) {
 
         this.ringBuffer = ringBuffer;
         this.sequenceBarrier = sequenceBarrier;
         this.workHandler = workHandler;
         this.exceptionHandler = exceptionHandler;
         this.workSequence = workSequence;
+        this.completedSequence = completedSequence;
 
         if (this.workHandler instanceof EventReleaseAware) {
             ((EventReleaseAware) this.workHandler).setEventReleaser(eventReleaser);
         }
 
         timeoutHandler = (workHandler instanceof TimeoutHandler) ? (TimeoutHandler) workHandler : null;
+        progressAwareWaitStrategy = BatchEventProcessor.progressAwareWaitStrategyOf(sequenceBarrier);
     }
 
     @Override
@@ -102,6 +142,41 @@ public final class WorkProcessor<T> implements EventProcessor {
         return running.get();
     }
 
+    /**
+     * Set the {@link ProcessorMetrics} to record the events handled by this processor to, must be called before the
+     * processor is started.  A {@link ProcessorMetrics} must not be shared with another processor.
+     *
+     * @param processorMetrics to record to, or <code>null</code> to stop recording.
+     */
+    public void setProcessorMetrics(final ProcessorMetrics processorMetrics)
+    {
+        this.processorMetrics = processorMetrics;
+    }
+
+    /**
+     * @return the metrics recorded by this processor, or <code>null</code> if none have been set.
+     */
+    public ProcessorMetrics getProcessorMetrics()
+    {
+        return processorMetrics;
+    }
+
+    /**
+     * Set the {@link LatencyTracer.Stage} to record the latency of sampled events handled by this processor to, must
+     * be called before the processor is started.  A stage must not be shared with another processor.
+     *
+     * @param latencyStage to record to, or <code>null</code> to stop recording.
+     */
+    public void setLatencyStage(final LatencyTracer.Stage latencyStage)
+    {
+        this.latencyStage = latencyStage;
+    }
+
+    public LatencyTracer.Stage getLatencyStage()
+    {
+        return latencyStage;
+    }
+
     /**
      * It is ok to have another thread re-run this method after a halt().
      *
@@ -120,6 +195,8 @@ public final class WorkProcessor<T> implements EventProcessor {
         long cachedAvailableSequence = Long.MIN_VALUE;
         long nextSequence = sequence.get();
         T event = null;
+        final ProcessorMetrics metrics = processorMetrics;
+        final LatencyTracer.Stage stage = latencyStage;
 
         while (true) {
             try {
@@ -135,12 +212,36 @@ public final class WorkProcessor<T> implements EventProcessor {
                         sequence.set(nextSequence - 1L);
                     }
                     while (!workSequence.compareAndSet(nextSequence - 1L, nextSequence));
+                    signalProgress(sequence);
                 }
 
                 if (cachedAvailableSequence >= nextSequence) {
                     event = ringBuffer.get(nextSequence);
-                    workHandler.onEvent(event);
+                    if (metrics != null || (stage != null && stage.isSampled(nextSequence))) {
+                        final long startCursor = metrics != null ? metrics.readCursor() : 0L;
+                        final long startNanoTime = System.nanoTime();
+                        if (metrics != null) {
+                            metrics.beginBatch(startNanoTime);
+                        }
+                        workHandler.onEvent(event);
+                        final long endNanoTime = System.nanoTime();
+                        if (metrics != null) {
+                            metrics.recordBatch(nextSequence - 1L, startCursor, 1L, startNanoTime, endNanoTime);
+                        }
+                        if (stage != null && stage.isSampled(nextSequence)) {
+                            stage.record(nextSequence, startNanoTime, endNanoTime);
+                        }
+                    }
+                    else {
+                        workHandler.onEvent(event);
+                    }
                     processedSequence = true;
+                    markCompleted(nextSequence);
+                }
+                else if (metrics != null) {
+                    final long startNanoTime = System.nanoTime();
+                    cachedAvailableSequence = sequenceBarrier.waitFor(nextSequence);
+                    metrics.recordWait(startNanoTime, System.nanoTime());
                 }
                 else {
                     cachedAvailableSequence = sequenceBarrier.waitFor(nextSequence);
@@ -158,6 +259,7 @@ public final class WorkProcessor<T> implements EventProcessor {
                 // handle, mark as processed, unless the exception handler threw an exception
                 exceptionHandler.handleEventException(ex, nextSequence, event);
                 processedSequence = true;
+                markCompleted(nextSequence);
             }
         }
 
@@ -165,6 +267,19 @@ public final class WorkProcessor<T> implements EventProcessor {
         running.set(false);
     }
 
+    private void markCompleted(final long sequence) {
+        if (completedSequence != null) {
+            completedSequence.markCompleted(sequence);
+            signalProgress(completedSequence);
+        }
+    }
+
+    private void signalProgress(final Sequence progressed) {
+        if (progressAwareWaitStrategy != null) {
+            progressAwareWaitStrategy.signalProgressWhenBlocking(progressed);
+        }
+    }
+
     private void notifyTimeout(final long availableSequence){
         try {
             if (timeoutHandler != null) {
@@ -17,7 +17,10 @@ package com.lmax.disruptor;
 
 import com.lmax.disruptor.util.Util;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -47,6 +50,10 @@ public final class WorkerPool<T> {
      * workProcessors are created to wrap each of the provided WorkHandlers
      */
     private final WorkProcessor<?>[] workProcessors;
+    /**
+     * 有序模式下的完成序号，普通模式下为null
+     */
+    private final ResequencingSequence completedSequence;
 
     /**
      * Create a worker pool to enable an array of {@link WorkHandler}s to consume published sequences.
@@ -65,9 +72,34 @@ public final class WorkerPool<T> {
         final SequenceBarrier sequenceBarrier,
         final ExceptionHandler<? super T> exceptionHandler,
         final WorkHandler<? super T>... workHandlers) {
+        this(ringBuffer, sequenceBarrier, exceptionHandler, null, workHandlers);
+    }
+
+    /**
+     * Create a worker pool whose workers process events in parallel, but whose progress is exposed in publication
+     * order.  Every event handled by a worker is marked on <code>completedSequence</code>, which only advances over
+     * the contiguous run of completed sequences, so stages gating on it see events in order.
+     * <p>
+     * This option requires a pre-configured {@link RingBuffer} which must have {@link RingBuffer#addGatingSequences(Sequence...)}
+     * called before the work pool is started.
+     *
+     * @param ringBuffer        of events to be consumed.
+     * @param sequenceBarrier   on which the workers will depend.
+     * @param exceptionHandler  to callback when an error occurs which is not handled by the {@link WorkHandler}s.
+     * @param completedSequence tracking the in order completion of the pool, must be sized to the ring buffer.
+     * @param workHandlers      to distribute the work load across.
+     */
+    @SafeVarargs
+    public WorkerPool(
+        final RingBuffer<T> ringBuffer,
+        final SequenceBarrier sequenceBarrier,
+        final ExceptionHandler<? super T> exceptionHandler,
+        final ResequencingSequence completedSequence,
+        final WorkHandler<? super T>... workHandlers) {
 
 
         this.ringBuffer = ringBuffer;
+        this.completedSequence = completedSequence;
         final int numWorkers = workHandlers.length;
         workProcessors = new WorkProcessor[numWorkers];
 
@@ -78,7 +110,8 @@ public final class WorkerPool<T> {
                 sequenceBarrier,
                 workHandlers[i],
                 exceptionHandler,
-                workSequence);
+                workSequence,
+                completedSequence);
         }
     }
 
@@ -99,6 +132,7 @@ public final class WorkerPool<T> {
         final WorkHandler<? super T>... workHandlers) {
 
         ringBuffer = RingBuffer.createMultiProducer(eventFactory, 1024, new BlockingWaitStrategy());
+        completedSequence = null;
         final SequenceBarrier barrier = ringBuffer.newBarrier();
         final int numWorkers = workHandlers.length;
         workProcessors = new WorkProcessor[numWorkers];
@@ -121,16 +155,71 @@ public final class WorkerPool<T> {
      * @return an array of {@link Sequence}s representing the progress of the workers.
      */
     public Sequence[] getWorkerSequences() {
-        final Sequence[] sequences = new Sequence[workProcessors.length + 1];
+        final int extra = completedSequence != null ? 2 : 1;
+        final Sequence[] sequences = new Sequence[workProcessors.length + extra];
         for (int i = 0, size = workProcessors.length; i < size; i++) {
             sequences[i] = workProcessors[i].getSequence();
         }
         //最后一个是workSequence
-        sequences[sequences.length - 1] = workSequence;
+        sequences[workProcessors.length] = workSequence;
+        if (completedSequence != null) {
+            sequences[workProcessors.length + 1] = completedSequence;
+        }
 
         return sequences;
     }
 
+    /**
+     * Get the {@link Sequence} exposing the contiguous prefix of events completed by the workers, for use as the
+     * dependency of later stages when the pool was created in ordered mode.
+     *
+     * @return the completed sequence, or <code>null</code> if this pool does not track completion order.
+     */
+    public Sequence getCompletedSequence()
+    {
+        return completedSequence;
+    }
+
+    /**
+     * Give each worker its own {@link ProcessorMetrics}, measuring lag against the ring buffer of the pool.  Must be
+     * called before the pool is started, workers that already have metrics keep them.
+     */
+    public void enableProcessorMetrics() {
+        for (WorkProcessor<?> processor : workProcessors) {
+            if (processor.getProcessorMetrics() == null) {
+                processor.setProcessorMetrics(new ProcessorMetrics(ringBuffer));
+            }
+        }
+    }
+
+    /**
+     * @return the metrics of each worker that has them, empty if metrics have not been enabled.
+     */
+    public ProcessorMetrics[] getProcessorMetrics() {
+        final List<ProcessorMetrics> metrics = new ArrayList<>(workProcessors.length);
+        for (WorkProcessor<?> processor : workProcessors) {
+            if (processor.getProcessorMetrics() != null) {
+                metrics.add(processor.getProcessorMetrics());
+            }
+        }
+        return metrics.toArray(new ProcessorMetrics[metrics.size()]);
+    }
+
+    /**
+     * Give each worker its own {@link LatencyTracer.Stage}, named after the pool and the index of the worker.  Must be
+     * called before the pool is started.
+     *
+     * @param tracer stamping the ring buffer of the pool.
+     * @param name   of the pool.
+     */
+    public void enableLatencyTracing(final LatencyTracer tracer, final String name) {
+        for (int i = 0; i < workProcessors.length; i++) {
+            if (workProcessors[i].getLatencyStage() == null) {
+                workProcessors[i].setLatencyStage(tracer.newStage(name + "#" + i));
+            }
+        }
+    }
+
     /**
      * Start the worker pool processing events in sequence.
      *
@@ -145,6 +234,9 @@ public final class WorkerPool<T> {
 
         final long cursor = ringBuffer.getCursor();
         workSequence.set(cursor);
+        if (completedSequence != null) {
+            completedSequence.set(cursor);
+        }
 
         for (WorkProcessor<?> processor : workProcessors) {
             processor.getSequence().set(cursor);
@@ -157,15 +249,44 @@ public final class WorkerPool<T> {
      * Wait for the {@link RingBuffer} to drain of published events then halt the workers.
      */
     public void drainAndHalt() {
-        Sequence[] workerSequences = getWorkerSequences();
-        while (ringBuffer.getCursor() > Util.getMinimumSequence(workerSequences)) {
-            Thread.yield();
+        try {
+            drainAndHalt(-1, TimeUnit.MILLISECONDS);
+        }
+        catch (final TimeoutException e) {
+            // Can not happen without a timeout.
         }
+    }
 
-        for (WorkProcessor<?> processor : workProcessors) {
-            processor.halt();
+    /**
+     * Wait for the {@link RingBuffer} to drain of published events then halt the workers, backing off while waiting
+     * so as not to take CPU from the workers being waited on.
+     *
+     * @param timeout  the amount of time to wait for the events to be processed. <code>-1</code> will give an infinite timeout
+     * @param timeUnit the unit the timeOut is specified in
+     * @throws TimeoutException if the events were not processed in time, the workers are then left running.
+     */
+    public void drainAndHalt(final long timeout, final TimeUnit timeUnit) throws TimeoutException {
+        final long timeOutAt = System.nanoTime() + timeUnit.toNanos(timeout);
+        final Sequence[] workerSequences = getWorkerSequences();
+        //只挂起不自旋，不与正在追赶的消费者抢占CPU
+        final IdleStrategy idleStrategy = new BackoffIdleStrategy(
+            0, 0, TimeUnit.MICROSECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(1));
+        long backlog = ringBuffer.getCursor() - Util.getMinimumSequence(workerSequences);
+        while (backlog > 0) {
+            if (timeout >= 0 && System.nanoTime() - timeOutAt > 0) {
+                throw TimeoutException.INSTANCE;
+            }
+
+            final long remaining = ringBuffer.getCursor() - Util.getMinimumSequence(workerSequences);
+            if (remaining < backlog) {
+                //有进展时从最短的挂起重新退避，但每轮仍然挂起
+                idleStrategy.reset();
+            }
+            idleStrategy.idle(0);
+            backlog = remaining;
         }
-        started.set(false);
+
+        halt();
     }
 
     /**
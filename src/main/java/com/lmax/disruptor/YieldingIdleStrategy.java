@@ -0,0 +1,42 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Idle strategy that yields the thread when idle, a good compromise between latency and CPU when there are spare
+ * cores, as with {@link YieldingWaitStrategy}.
+ *
+ * 让出CPU的空闲策略
+ */
+public final class YieldingIdleStrategy implements IdleStrategy {
+    @Override
+    public void idle(final int workCount) {
+        if (workCount > 0) {
+            return;
+        }
+
+        Thread.yield();
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public String toString() {
+        return "YieldingIdleStrategy{}";
+    }
+}
@@ -22,6 +22,9 @@ package com.lmax.disruptor;
  * <p>
  * This strategy will use 100% CPU, but will more readily give up the CPU than a busy spin strategy if other threads
  * require CPU resource.
+ * <p>
+ * The barrier is only checked for an alert when yielding, so that the initial spins read only the cache line of the
+ * sequence being waited on.
  * 线程礼让的等待策略
  *
  * @author ;
@@ -67,9 +70,9 @@ public final class YieldingWaitStrategy implements WaitStrategy {
     private int applyWaitMethod(final SequenceBarrier barrier, int counter)
         throws AlertException {
 
-        barrier.checkAlert();
-
         if (0 == counter) {
+            //只在让出时检查alert，自旋时只读取被等待的序号
+            barrier.checkAlert();
             Thread.yield();
         }
         else {
@@ -1,5 +1,8 @@
 package com.lmax.disruptor.dsl;
 
+import com.lmax.disruptor.Cursored;
+import com.lmax.disruptor.LatencyTracer;
+import com.lmax.disruptor.ProcessorMetrics;
 import com.lmax.disruptor.Sequence;
 import com.lmax.disruptor.SequenceBarrier;
 
@@ -12,6 +15,11 @@ interface ConsumerInfo {
 
     Sequence[] getSequences();
 
+    /**
+     * @return the lowest of the sequences of this consumer, read without allocating.
+     */
+    long getMinimumSequence();
+
     SequenceBarrier getBarrier();
 
     boolean isEndOfChain();
@@ -23,4 +31,24 @@ interface ConsumerInfo {
     void markAsUsedInBarrier();
 
     boolean isRunning();
+
+    /**
+     * 为支持统计的处理器开启统计，必须在启动前调用
+     *
+     * @param cursor the lag of the processors is measured against.
+     */
+    void enableProcessorMetrics(Cursored cursor);
+
+    /**
+     * @return the metrics of the processors of this consumer, empty if none are recorded.
+     */
+    ProcessorMetrics[] getProcessorMetrics();
+
+    /**
+     * 为支持延迟追踪的处理器创建追踪阶段，必须在启动前调用
+     *
+     * @param tracer stamping the ring buffer.
+     * @param name   of the consumer, used to name its stages.
+     */
+    void enableLatencyTracing(LatencyTracer tracer, String name);
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+/**
+ * Management interface of a consumer of a {@link Disruptor}, either a single event processor or a worker pool,
+ * registered by {@link Disruptor#registerMBeans(String)}.  The metric attributes are only recorded once
+ * {@link Disruptor#enableProcessorMetrics()} has been called, and are <code>-1</code> otherwise.  Times are in
+ * nanoseconds.
+ *
+ * 通过JMX暴露的消费者状态
+ */
+public interface ConsumerMXBean {
+    String getName();
+
+    /**
+     * @return the sequence of each processor of the consumer.
+     */
+    long[] getSequences();
+
+    /**
+     * @return the lowest sequence of the processors of the consumer.
+     */
+    long getSequence();
+
+    /**
+     * @return how far the consumer is behind the cursor of the ring buffer.
+     */
+    long getLag();
+
+    boolean isRunning();
+
+    boolean isEndOfChain();
+
+    String getWaitStrategy();
+
+    boolean isMetricsEnabled();
+
+    long getBatchCount();
+
+    long getEventCount();
+
+    long getBatchSizeP99();
+
+    long getWaitTimeP99();
+
+    long getHandlerTimeP50();
+
+    long getHandlerTimeP99();
+
+    long getHandlerTimeMax();
+
+    /**
+     * @return the mean utilisation of the processors of the consumer over their rolling window, between
+     * <code>0</code> and <code>1</code>, or <code>-1</code> if metrics are not enabled.
+     */
+    double getUtilisation();
+}
@@ -38,7 +38,7 @@ class ConsumerRepository<T> implements Iterable<ConsumerInfo> {
     /**
      * ConsumerInfo
      */
-    private final Collection<ConsumerInfo> consumerInfos = new ArrayList<>();
+    private final List<ConsumerInfo> consumerInfos = new ArrayList<>();
 
     public void add(
         final EventProcessor eventprocessor,
@@ -83,6 +83,24 @@ class ConsumerRepository<T> implements Iterable<ConsumerInfo> {
         return false;
     }
 
+    /**
+     * How far the slowest consumer at the end of a chain is behind the cursor.
+     *
+     * @param cursor         the cursor of the ring buffer.
+     * @param includeStopped whether to include consumers that are not running.
+     * @return number of events still to be processed, 0 if there is no backlog.
+     */
+    public long getBacklog(long cursor, boolean includeStopped) {
+        long backlog = 0;
+        for (ConsumerInfo consumerInfo : consumerInfos) {
+            if ((includeStopped || consumerInfo.isRunning()) && consumerInfo.isEndOfChain()) {
+                backlog = Math.max(backlog, cursor - consumerInfo.getMinimumSequence());
+            }
+        }
+
+        return backlog;
+    }
+
     /**
      * @deprecated this function should no longer be used to determine the existence
      * of a backlog, instead use hasBacklog
@@ -124,6 +142,19 @@ class ConsumerRepository<T> implements Iterable<ConsumerInfo> {
         }
     }
 
+    /**
+     * @return the number of consumers, for iterating with {@link #get(int)} without allocating an iterator.
+     */
+    public int size()
+    {
+        return consumerInfos.size();
+    }
+
+    public ConsumerInfo get(final int index)
+    {
+        return consumerInfos.get(index);
+    }
+
     @Override
     public Iterator<ConsumerInfo> iterator()
     {
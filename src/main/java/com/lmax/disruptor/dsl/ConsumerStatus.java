@@ -0,0 +1,192 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+import com.lmax.disruptor.ProcessorMetrics;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.util.PowerOfTwoHistogram;
+import com.lmax.disruptor.util.Util;
+
+/**
+ * Reads the state of a consumer for {@link ConsumerMXBean}.  The metrics of a worker pool are the sum of the metrics
+ * of its workers.
+ *
+ * 读取消费者状态的MXBean实现
+ */
+final class ConsumerStatus implements ConsumerMXBean {
+    /**
+     * 汇总的直方图种类
+     */
+    private static final int BATCH_SIZES = 0;
+    private static final int WAIT_TIMES = 1;
+    private static final int HANDLER_TIMES = 2;
+
+    private final String name;
+    private final ConsumerInfo consumerInfo;
+    private final RingBuffer<?> ringBuffer;
+
+    ConsumerStatus(final String name, final ConsumerInfo consumerInfo, final RingBuffer<?> ringBuffer) {
+        this.name = name;
+        this.consumerInfo = consumerInfo;
+        this.ringBuffer = ringBuffer;
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public long[] getSequences() {
+        final Sequence[] sequences = consumerInfo.getSequences();
+        final long[] values = new long[sequences.length];
+        for (int i = 0; i < sequences.length; i++) {
+            values[i] = sequences[i].get();
+        }
+        return values;
+    }
+
+    @Override
+    public long getSequence()
+    {
+        return Util.getMinimumSequence(consumerInfo.getSequences());
+    }
+
+    @Override
+    public long getLag()
+    {
+        return Math.max(0L, ringBuffer.getCursor() - getSequence());
+    }
+
+    @Override
+    public boolean isRunning()
+    {
+        return consumerInfo.isRunning();
+    }
+
+    @Override
+    public boolean isEndOfChain()
+    {
+        return consumerInfo.isEndOfChain();
+    }
+
+    @Override
+    public String getWaitStrategy()
+    {
+        return RingBufferStatus.nameOf(ringBuffer.getWaitStrategy());
+    }
+
+    @Override
+    public boolean isMetricsEnabled()
+    {
+        return consumerInfo.getProcessorMetrics().length != 0;
+    }
+
+    @Override
+    public long getBatchCount() {
+        final ProcessorMetrics[] metrics = consumerInfo.getProcessorMetrics();
+        if (metrics.length == 0) {
+            return -1L;
+        }
+        long batchCount = 0;
+        for (ProcessorMetrics processorMetrics : metrics) {
+            batchCount += processorMetrics.getBatchCount();
+        }
+        return batchCount;
+    }
+
+    @Override
+    public long getEventCount() {
+        final ProcessorMetrics[] metrics = consumerInfo.getProcessorMetrics();
+        if (metrics.length == 0) {
+            return -1L;
+        }
+        long eventCount = 0;
+        for (ProcessorMetrics processorMetrics : metrics) {
+            eventCount += processorMetrics.getEventCount();
+        }
+        return eventCount;
+    }
+
+    @Override
+    public long getBatchSizeP99()
+    {
+        return percentileOf(BATCH_SIZES, 99.0);
+    }
+
+    @Override
+    public long getWaitTimeP99()
+    {
+        return percentileOf(WAIT_TIMES, 99.0);
+    }
+
+    @Override
+    public long getHandlerTimeP50()
+    {
+        return percentileOf(HANDLER_TIMES, 50.0);
+    }
+
+    @Override
+    public long getHandlerTimeP99()
+    {
+        return percentileOf(HANDLER_TIMES, 99.0);
+    }
+
+    @Override
+    public long getHandlerTimeMax()
+    {
+        return percentileOf(HANDLER_TIMES, 100.0);
+    }
+
+    @Override
+    public double getUtilisation() {
+        final ProcessorMetrics[] metrics = consumerInfo.getProcessorMetrics();
+        if (metrics.length == 0) {
+            return -1.0;
+        }
+        double utilisation = 0.0;
+        for (ProcessorMetrics processorMetrics : metrics) {
+            utilisation += processorMetrics.getUtilisation();
+        }
+        return utilisation / metrics.length;
+    }
+
+    private long percentileOf(final int histogram, final double percentile) {
+        final ProcessorMetrics[] metrics = consumerInfo.getProcessorMetrics();
+        if (metrics.length == 0) {
+            return -1L;
+        }
+
+        final PowerOfTwoHistogram total = new PowerOfTwoHistogram();
+        for (ProcessorMetrics processorMetrics : metrics) {
+            histogramOf(processorMetrics, histogram).addTo(total);
+        }
+        return total.getValueAtPercentile(percentile);
+    }
+
+    private static PowerOfTwoHistogram histogramOf(final ProcessorMetrics metrics, final int histogram) {
+        switch (histogram) {
+            case BATCH_SIZES:
+                return metrics.getBatchSizes();
+            case WAIT_TIMES:
+                return metrics.getWaitTimes();
+            default:
+                return metrics.getHandlerTimes();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+import com.lmax.disruptor.SequencerStats;
+import com.lmax.disruptor.util.MappedCounters;
+
+import java.util.Arrays;
+
+/**
+ * <p>Copies the state of a {@link Disruptor} into {@link MappedCounters} each time it is run, for example from a
+ * {@link java.util.concurrent.ScheduledExecutorService}, so that another process can follow the ring buffer and its
+ * consumers by reading the counters file.</p>
+ *
+ * <p>The ring buffer is exported as <code>&lt;prefix&gt;cursor</code>, <code>remainingCapacity</code> and
+ * <code>backlog</code>, each consumer as <code>&lt;prefix&gt;&lt;name&gt;.sequence</code> and <code>.lag</code>, and
+ * the publisher contention as <code>&lt;prefix&gt;claims</code>, <code>casFailures</code> and
+ * <code>fullRingParks</code> once {@link com.lmax.disruptor.RingBuffer#enableSequencerStats()} has been called.
+ * Counters are allocated when first needed and, apart from the publisher contention, updated without allocating.
+ * Must not be run by more than one thread at a time.</p>
+ *
+ * 将Disruptor状态定期写入内存映射计数器
+ */
+public final class CountersExporter implements Runnable {
+    private final Disruptor<?> disruptor;
+    private final MappedCounters counters;
+    private final String prefix;
+    private final int cursorId;
+    private final int remainingCapacityId;
+    private final int backlogId;
+    private int[] sequenceIds = new int[0];
+    private int[] lagIds = new int[0];
+    private int claimsId = -1;
+    private int casFailuresId = -1;
+    private int fullRingParksId = -1;
+    private TopologySnapshot snapshot;
+
+    /**
+     * @param disruptor to export.
+     * @param counters  to write to, needs 3 counters for the ring buffer, 2 per consumer and 3 for the publishers.
+     * @param prefix    of the counter labels, e.g. the name of the Disruptor followed by a '.'.
+     */
+    public CountersExporter(final Disruptor<?> disruptor, final MappedCounters counters, final String prefix) {
+        this.disruptor = disruptor;
+        this.counters = counters;
+        this.prefix = prefix;
+        this.cursorId = counters.allocate(prefix + "cursor");
+        this.remainingCapacityId = counters.allocate(prefix + "remainingCapacity");
+        this.backlogId = counters.allocate(prefix + "backlog");
+    }
+
+    @Override
+    public void run() {
+        snapshot = disruptor.snapshot(snapshot);
+        counters.set(cursorId, snapshot.getCursor());
+        counters.set(remainingCapacityId, snapshot.getRemainingCapacity());
+        counters.set(backlogId, snapshot.getBacklog());
+
+        final int consumerCount = snapshot.getConsumerCount();
+        if (consumerCount > sequenceIds.length) {
+            allocateConsumers(consumerCount);
+        }
+        for (int i = 0; i < consumerCount; i++) {
+            counters.set(sequenceIds[i], snapshot.getSequence(i));
+            counters.set(lagIds[i], snapshot.getLag(i));
+        }
+
+        final SequencerStats stats = disruptor.getRingBuffer().getSequencerStats();
+        if (stats != null) {
+            if (claimsId < 0) {
+                claimsId = counters.allocate(prefix + "claims");
+                casFailuresId = counters.allocate(prefix + "casFailures");
+                fullRingParksId = counters.allocate(prefix + "fullRingParks");
+            }
+            counters.set(claimsId, stats.getClaims());
+            counters.set(casFailuresId, stats.getCasFailures());
+            counters.set(fullRingParksId, stats.getFullRingParks());
+        }
+    }
+
+    private void allocateConsumers(final int consumerCount) {
+        final int allocated = sequenceIds.length;
+        sequenceIds = Arrays.copyOf(sequenceIds, consumerCount);
+        lagIds = Arrays.copyOf(lagIds, consumerCount);
+        for (int i = allocated; i < consumerCount; i++) {
+            sequenceIds[i] = counters.allocate(prefix + snapshot.getName(i) + ".sequence");
+            lagIds[i] = counters.allocate(prefix + snapshot.getName(i) + ".lag");
+        }
+    }
+
+    public MappedCounters getCounters()
+    {
+        return counters;
+    }
+}
@@ -15,7 +15,10 @@
  */
 package com.lmax.disruptor.dsl;
 
+import com.lmax.disruptor.BackoffIdleStrategy;
 import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.ConsumerLagMonitor;
+import com.lmax.disruptor.DutyCycleScheduler;
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.EventProcessor;
@@ -24,16 +27,33 @@ import com.lmax.disruptor.EventTranslatorOneArg;
 import com.lmax.disruptor.EventTranslatorThreeArg;
 import com.lmax.disruptor.EventTranslatorTwoArg;
 import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.IdleStrategy;
+import com.lmax.disruptor.LatencyTracer;
+import com.lmax.disruptor.LockBlockingWaitStrategy;
+import com.lmax.disruptor.PollingEventProcessor;
+import com.lmax.disruptor.ProcessorMetrics;
+import com.lmax.disruptor.ResequencingSequence;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.Sequence;
 import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.TickingBlockingWaitStrategy;
 import com.lmax.disruptor.TimeoutException;
 import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.WorkHandler;
 import com.lmax.disruptor.WorkerPool;
 import com.lmax.disruptor.util.Util;
-
+import com.lmax.disruptor.util.VirtualThreadFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -83,6 +103,10 @@ public class Disruptor<T> {
      * ExceptionHandler
      */
     private ExceptionHandler<? super T> exceptionHandler = new ExceptionHandlerWrapper<>();
+    /**
+     * registerMBeans注册的MBean名称
+     */
+    private final List<ObjectName> registeredMBeans = new ArrayList<>();
 
     /**
      * Create a new Disruptor. Will default to {@link com.lmax.disruptor.BlockingWaitStrategy} and
@@ -160,6 +184,66 @@ public class Disruptor<T> {
             new BasicExecutor(threadFactory));
     }
 
+    /**
+     * Create a new Disruptor that runs each event processor on a virtual thread of its own, falling back to
+     * platform daemon threads on runtimes without virtual threads.  Defaults to a
+     * {@link LockBlockingWaitStrategy} and {@link ProducerType}.MULTI, so that neither consumers nor blocking
+     * publishers pin their carrier threads.
+     *
+     * @param eventFactory   the factory to create events in the ring buffer.
+     * @param ringBufferSize the size of the ring buffer, must be power of 2.
+     * @param <T>            the type of event used.
+     * @return a Disruptor running its processors on virtual threads.
+     * 使用虚拟线程运行消费者
+     */
+    public static <T> Disruptor<T> createWithVirtualThreads(final EventFactory<T> eventFactory, final int ringBufferSize) {
+        return createWithVirtualThreads(eventFactory, ringBufferSize, ProducerType.MULTI, new LockBlockingWaitStrategy());
+    }
+
+    /**
+     * Create a new Disruptor that runs each event processor on a virtual thread of its own, falling back to
+     * platform daemon threads on runtimes without virtual threads.  Use a wait strategy that does not block
+     * inside <code>synchronized</code>, such as {@link LockBlockingWaitStrategy}, to keep idle processors
+     * from pinning carrier threads.
+     *
+     * @param eventFactory   the factory to create events in the ring buffer.
+     * @param ringBufferSize the size of the ring buffer, must be power of 2.
+     * @param producerType   the claim strategy to use for the ring buffer.
+     * @param waitStrategy   the wait strategy to use for the ring buffer.
+     * @param <T>            the type of event used.
+     * @return a Disruptor running its processors on virtual threads.
+     */
+    public static <T> Disruptor<T> createWithVirtualThreads(
+            final EventFactory<T> eventFactory,
+            final int ringBufferSize,
+            final ProducerType producerType,
+            final WaitStrategy waitStrategy) {
+
+        return new Disruptor<>(eventFactory, ringBufferSize, VirtualThreadFactory.INSTANCE, producerType, waitStrategy);
+    }
+
+    /**
+     * Create a new Disruptor whose event handlers share the threads of a {@link DutyCycleScheduler} instead of
+     * each having a thread of its own.  Handlers are run by {@link PollingEventProcessor}s, which never block, so
+     * the wait strategy only affects producers and custom processors.
+     *
+     * @param eventFactory   the factory to create events in the ring buffer.
+     * @param ringBufferSize the size of the ring buffer, must be power of 2.
+     * @param scheduler      the {@link DutyCycleScheduler} to multiplex event handlers onto.
+     * @param producerType   the claim strategy to use for the ring buffer.
+     * @param waitStrategy   the wait strategy to use for the ring buffer.
+     * 多个消费者共享线程的构造函数
+     */
+    public Disruptor(
+            final EventFactory<T> eventFactory,
+            final int ringBufferSize,
+            final DutyCycleScheduler scheduler,
+            final ProducerType producerType,
+            final WaitStrategy waitStrategy) {
+
+        this(RingBuffer.create(producerType, eventFactory, ringBufferSize, waitStrategy), scheduler);
+    }
+
     /**
      * Private constructor helper
      */
@@ -257,6 +341,22 @@ public class Disruptor<T> {
         return createWorkerPool(new Sequence[0], workHandlers);
     }
 
+    /**
+     * Set up a {@link WorkerPool} to process events in parallel across a pool of work handler threads, while
+     * exposing completion to later stages in the order the events were published.
+     * Each event will only be processed by one of the work handlers.
+     * The Disruptor will automatically start this processors when {@link #start()} is called.
+     *
+     * @param workHandlers the work handlers that will process events.
+     * @return a {@link EventHandlerGroup} that can be used to chain dependencies, which will observe events in order.
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public final EventHandlerGroup<T> handleEventsWithParallelOrdered(final WorkHandler<T>... workHandlers)
+    {
+        return createOrderedWorkerPool(new Sequence[0], workHandlers);
+    }
+
     /**
      * <p>Specify an exception handler to be used for any future event handlers.</p>
      *
@@ -412,13 +512,18 @@ public class Disruptor<T> {
     }
 
     /**
-     * Calls {@link com.lmax.disruptor.EventProcessor#halt()} on all of the event processors created via this disruptor.
+     * Calls {@link com.lmax.disruptor.EventProcessor#halt()} on all of the event processors created via this disruptor,
+     * and unregisters a {@link TickingBlockingWaitStrategy} from its {@link com.lmax.disruptor.Ticker}.
      * halt
      */
     public void halt() {
         for (final ConsumerInfo consumerInfo : consumerRepository) {
             consumerInfo.halt();
         }
+        final WaitStrategy waitStrategy = ringBuffer.getWaitStrategy();
+        if (waitStrategy instanceof TickingBlockingWaitStrategy) {
+            ((TickingBlockingWaitStrategy) waitStrategy).unregister();
+        }
     }
 
     /**
@@ -451,16 +556,183 @@ public class Disruptor<T> {
      * @throws TimeoutException if a timeout occurs before shutdown completes.
      */
     public void shutdown(final long timeout, final TimeUnit timeUnit) throws TimeoutException {
-        final long timeOutAt = System.currentTimeMillis() + timeUnit.toMillis(timeout);
-        while (hasBacklog()) {
-            if (timeout >= 0 && System.currentTimeMillis() > timeOutAt) {
+        final long timeOutAt = System.nanoTime() + timeUnit.toNanos(timeout);
+        //只挂起不自旋，不与正在追赶的消费者抢占CPU
+        final IdleStrategy idleStrategy = new BackoffIdleStrategy(
+            0, 0, TimeUnit.MICROSECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(1));
+        long backlog = getBacklog();
+        while (backlog > 0) {
+            if (timeout >= 0 && System.nanoTime() - timeOutAt > 0) {
                 throw TimeoutException.INSTANCE;
             }
-            // Busy spin
+
+            final long remaining = getBacklog();
+            if (remaining < backlog) {
+                //有进展时从最短的挂起重新退避，但每轮仍然挂起
+                idleStrategy.reset();
+            }
+            idleStrategy.idle(0);
+            backlog = remaining;
         }
         halt();
     }
 
+    /**
+     * <p>Shuts the disruptor down as {@link #shutdown(long, TimeUnit)} does, but on a separate daemon thread.</p>
+     *
+     * @param timeout  the amount of time to wait for all events to be processed. <code>-1</code> will give an infinite timeout
+     * @param timeUnit the unit the timeOut is specified in
+     * @return a future that completes once the processors have been halted, or fails with a {@link TimeoutException}.
+     * 异步关闭
+     */
+    public Future<Void> shutdownAsync(final long timeout, final TimeUnit timeUnit) {
+        final FutureTask<Void> future = new FutureTask<>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception
+            {
+                shutdown(timeout, timeUnit);
+                return null;
+            }
+        });
+
+        final Thread thread = new Thread(future, "disruptor-shutdown");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * Reports drain progress while shutting down: how far the slowest running event processor at the end of a chain
+     * is behind the cursor.
+     *
+     * @return number of events still to be processed, 0 if there is no backlog.
+     */
+    public long getBacklog() {
+        return consumerRepository.getBacklog(ringBuffer.getCursor(), false);
+    }
+
+    /**
+     * Record {@link ProcessorMetrics} for every {@link BatchEventProcessor} and worker pool set up so far, measuring
+     * lag against the ring buffer.  Must be called after the event handlers have been added and before
+     * {@link #start()}.
+     */
+    public void enableProcessorMetrics() {
+        checkNotStarted();
+        for (final ConsumerInfo consumerInfo : consumerRepository) {
+            consumerInfo.enableProcessorMetrics(ringBuffer);
+        }
+    }
+
+    /**
+     * Fill a snapshot with the cursor of the ring buffer and the sequence and state of every consumer, in one pass
+     * and without allocating when the snapshot is reused, so that a monitoring thread can poll cheaply.
+     *
+     * @param reuse snapshot to fill, or <code>null</code> to create a new one.
+     * @return the filled snapshot.
+     */
+    public TopologySnapshot snapshot(final TopologySnapshot reuse) {
+        final TopologySnapshot snapshot = reuse != null ? reuse : new TopologySnapshot();
+        final int consumerCount = consumerRepository.size();
+        if (snapshot.prepare(this, consumerCount)) {
+            for (int i = 0; i < consumerCount; i++) {
+                snapshot.setName(i, i + "-" + consumerNameOf(consumerRepository.get(i)));
+            }
+        }
+
+        for (int i = 0; i < consumerCount; i++) {
+            final ConsumerInfo consumerInfo = consumerRepository.get(i);
+            snapshot.setConsumer(
+                i, consumerInfo.getMinimumSequence(), consumerInfo.isRunning(), consumerInfo.isEndOfChain());
+        }
+        //消费者序号先于游标读取，保证落后量不为负
+        snapshot.setRingBuffer(
+            System.nanoTime(), ringBuffer.getCursor(), ringBuffer.getMinimumGatingSequence(), ringBuffer.getBufferSize());
+
+        return snapshot;
+    }
+
+    /**
+     * Stamp the publish time of sampled sequences on the ring buffer and give every consumer set up so far a
+     * {@link LatencyTracer.Stage}, named <code>&lt;index&gt;-&lt;handler&gt;</code> as for
+     * {@link #registerMBeans(String)}, recording the queueing and service latency of the sampled events.  Must be
+     * called after the event handlers have been added and before {@link #start()}.
+     *
+     * @param sampleInterval trace every sampleInterval-th sequence, must be a power of 2, 1 traces every event.
+     * @return the tracer holding the stages.
+     */
+    public LatencyTracer enableLatencyTracing(final int sampleInterval) {
+        checkNotStarted();
+        final LatencyTracer tracer = ringBuffer.enableLatencyTracing(sampleInterval);
+        int index = 0;
+        for (final ConsumerInfo consumerInfo : consumerRepository) {
+            consumerInfo.enableLatencyTracing(tracer, index++ + "-" + consumerNameOf(consumerInfo));
+        }
+        return tracer;
+    }
+
+    /**
+     * <p>Register a {@link RingBufferMXBean} for the ring buffer and a {@link ConsumerMXBean} for every consumer set up
+     * so far with the platform MBean server, named <code>domain:type=RingBuffer</code> and
+     * <code>domain:type=Consumer,name=&lt;index&gt;-&lt;handler&gt;</code>.  Each Disruptor needs its own domain.</p>
+     *
+     * <p>Consumers added after this call are not registered.  The attributes are read live, so this can be called
+     * before or after {@link #start()}.</p>
+     *
+     * @param domain of the names of the MBeans.
+     * @return the names of the registered MBeans.
+     * @throws JMException if any of the MBeans could not be registered, those registered so far are kept.
+     */
+    public synchronized List<ObjectName> registerMBeans(final String domain) throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final List<ObjectName> names = new ArrayList<>();
+
+        final ObjectName ringBufferName = new ObjectName(domain + ":type=RingBuffer");
+        server.registerMBean(new RingBufferStatus(ringBuffer, consumerRepository), ringBufferName);
+        registeredMBeans.add(ringBufferName);
+        names.add(ringBufferName);
+
+        int index = 0;
+        for (final ConsumerInfo consumerInfo : consumerRepository) {
+            final String name = index++ + "-" + consumerNameOf(consumerInfo);
+            final ObjectName consumerName = new ObjectName(domain + ":type=Consumer,name=" + name);
+            server.registerMBean(new ConsumerStatus(name, consumerInfo, ringBuffer), consumerName);
+            registeredMBeans.add(consumerName);
+            names.add(consumerName);
+        }
+
+        return names;
+    }
+
+    /**
+     * Unregister every MBean registered by {@link #registerMBeans(String)}.
+     *
+     * @throws JMException if any of the MBeans could not be unregistered.
+     */
+    public synchronized void unregisterMBeans() throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        while (!registeredMBeans.isEmpty()) {
+            final ObjectName name = registeredMBeans.remove(registeredMBeans.size() - 1);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+    }
+
+    private static String consumerNameOf(final ConsumerInfo consumerInfo) {
+        Object consumer = consumerInfo;
+        if (consumerInfo instanceof EventProcessorInfo) {
+            final EventProcessorInfo<?> eventProcessorInfo = (EventProcessorInfo<?>) consumerInfo;
+            consumer = eventProcessorInfo.getHandler() != null ?
+                eventProcessorInfo.getHandler() : eventProcessorInfo.getEventProcessor();
+        }
+        else if (consumerInfo instanceof WorkerPoolInfo) {
+            return "WorkerPool";
+        }
+
+        final String className = consumer.getClass().getName();
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
     /**
      * The {@link RingBuffer} used by this Disruptor.  This is useful for creating custom
      * event processors if the behaviour of {@link BatchEventProcessor} is not suitable.
@@ -528,12 +800,35 @@ public class Disruptor<T> {
     }
 
     /**
-     * Confirms if all messages have been consumed by all event processors
+     * <p>Create a {@link ConsumerLagMonitor} watching every event handler at the end of a chain that depends on no
+     * other handler, so that a handler falling too far behind is detached rather than blocking the producers.
+     * Handlers with upstream dependencies are never detached, as their sequences protect the upstream stages.  Call this once all handlers have been
+     * set up, and run the returned monitor periodically.</p>
+     *
+     * @param maxLagSlots number of slots a handler may fall behind the cursor before it is detached.
+     * @param maxLagTime  time a handler may take to reach a cursor position before it is detached.
+     * @param units       of maxLagTime.
+     * @param listener    to notify of detachments, may be <code>null</code>.
+     * @return the monitor, which is not yet running.
+     * 创建消费者落后监控
      */
-    private boolean hasBacklog() {
-        final long cursor = ringBuffer.getCursor();
+    public ConsumerLagMonitor createLagMonitor(
+        final long maxLagSlots,
+        final long maxLagTime,
+        final TimeUnit units,
+        final ConsumerLagMonitor.DetachListener listener) {
+        final ConsumerLagMonitor monitor = new ConsumerLagMonitor(ringBuffer, maxLagSlots, maxLagTime, units, listener);
+        for (final ConsumerInfo consumerInfo : consumerRepository) {
+            if (consumerInfo instanceof EventProcessorInfo && consumerInfo.isEndOfChain()) {
+                final EventProcessor processor = ((EventProcessorInfo<?>) consumerInfo).getEventProcessor();
+                if (processor instanceof BatchEventProcessor &&
+                    ConsumerLagMonitor.isDetachable((BatchEventProcessor<?>) processor)) {
+                    monitor.watch((BatchEventProcessor<?>) processor);
+                }
+            }
+        }
 
-        return consumerRepository.hasBacklog(cursor, false);
+        return monitor;
     }
 
     /**
@@ -560,6 +855,19 @@ public class Disruptor<T> {
 
             //给每一个eventHandler包装一个batchEventProcessor
             final EventHandler<? super T> eventHandler = eventHandlers[i];
+            if (executor instanceof DutyCycleScheduler) {
+                //共享线程模式下使用不阻塞的PollingEventProcessor
+                final PollingEventProcessor<T> pollingEventProcessor =
+                    new PollingEventProcessor<>(ringBuffer, ringBuffer.newPoller(barrierSequences), eventHandler);
+
+                if (exceptionHandler != null) {
+                    pollingEventProcessor.setExceptionHandler(exceptionHandler);
+                }
+                consumerRepository.add(pollingEventProcessor, eventHandler, barrier);
+                processorSequences[i] = pollingEventProcessor.getSequence();
+                continue;
+            }
+
             //创建BatchEventProccesor。一个EventHandler创建一个batchEventProcessor
             final BatchEventProcessor<T> batchEventProcessor = new BatchEventProcessor<>(ringBuffer, barrier, eventHandler);
 
@@ -613,6 +921,21 @@ public class Disruptor<T> {
         return new EventHandlerGroup<>(this, consumerRepository, workerSequences);
     }
 
+    EventHandlerGroup<T> createOrderedWorkerPool(
+        final Sequence[] barrierSequences, final WorkHandler<? super T>[] workHandlers) {
+        final SequenceBarrier sequenceBarrier = ringBuffer.newBarrier(barrierSequences);
+        final ResequencingSequence completedSequence = new ResequencingSequence(ringBuffer.getBufferSize());
+        final WorkerPool<T> workerPool =
+            new WorkerPool<>(ringBuffer, sequenceBarrier, exceptionHandler, completedSequence, workHandlers);
+
+        consumerRepository.add(workerPool, sequenceBarrier);
+
+        updateGatingSequencesForNextInChain(barrierSequences, workerPool.getWorkerSequences());
+
+        //后续的消费者只依赖有序的完成序号
+        return new EventHandlerGroup<>(this, consumerRepository, new Sequence[]{completedSequence});
+    }
+
     /**
      * 检测是否还没有启动
      */
@@ -142,6 +142,25 @@ public class EventHandlerGroup<T> {
         return handleEventsWithWorkerPool(handlers);
     }
 
+    /**
+     * <p>Set up a worker pool to handle events from the ring buffer in parallel, while keeping them in order for
+     * the next stage. The worker pool will only process events after every {@link EventProcessor} in this group has
+     * processed the event. Each event will be processed by one of the work handler instances, and the returned group
+     * only exposes the contiguous run of completed events, so handlers chained after it see them in order.</p>
+     *
+     * <p>This method is generally used as part of a chain. For example if the expensive handlers <code>B, C</code>
+     * must process events after <code>A</code> and before <code>D</code>, which needs them in order:</p>
+     *
+     * <pre><code>dw.handleEventsWith(A).thenParallelOrdered(B, C).then(D);</code></pre>
+     *
+     * @param handlers the work handlers that will process events. Each work handler instance will provide an extra thread in the worker pool.
+     * @return a {@link EventHandlerGroup} that can be used to set up a event processor barrier over the in order completion of the pool.
+     */
+    @SafeVarargs
+    public final EventHandlerGroup<T> thenParallelOrdered(final WorkHandler<? super T>... handlers) {
+        return handleEventsWithParallelOrdered(handlers);
+    }
+
     /**
      * <p>Set up batch handlers to handle events from the ring buffer. These handlers will only process events
      * after every {@link EventProcessor} in this group has processed the event.</p>
@@ -197,6 +216,22 @@ public class EventHandlerGroup<T> {
         return disruptor.createWorkerPool(sequences, handlers);
     }
 
+    /**
+     * <p>Set up a worker pool to handle events from the ring buffer in parallel, while keeping them in order for
+     * the next stage. The worker pool will only process events after every {@link EventProcessor} in this group has
+     * processed the event.</p>
+     *
+     * <pre><code>dw.after(A).handleEventsWithParallelOrdered(B, C).then(D);</code></pre>
+     *
+     * @param handlers the work handlers that will process events. Each work handler instance will provide an extra thread in the worker pool.
+     * @return a {@link EventHandlerGroup} that can be used to set up a event processor barrier over the in order completion of the pool.
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public final EventHandlerGroup<T> handleEventsWithParallelOrdered(final WorkHandler<? super T>... handlers) {
+        return disruptor.createOrderedWorkerPool(sequences, handlers);
+    }
+
     /**
      * Create a dependency barrier for the processors in this group.
      * This allows custom event processors to have dependencies on
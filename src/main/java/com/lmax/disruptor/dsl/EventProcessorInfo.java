@@ -15,8 +15,12 @@
  */
 package com.lmax.disruptor.dsl;
 
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.Cursored;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.EventProcessor;
+import com.lmax.disruptor.LatencyTracer;
+import com.lmax.disruptor.ProcessorMetrics;
 import com.lmax.disruptor.Sequence;
 import com.lmax.disruptor.SequenceBarrier;
 
@@ -56,6 +60,12 @@ class EventProcessorInfo<T> implements ConsumerInfo {
         return new Sequence[]{eventprocessor.getSequence()};
     }
 
+    @Override
+    public long getMinimumSequence()
+    {
+        return eventprocessor.getSequence().get();
+    }
+
     public EventHandler<? super T> getHandler()
     {
         return handler;
@@ -102,4 +112,35 @@ class EventProcessorInfo<T> implements ConsumerInfo {
     {
         return eventprocessor.isRunning();
     }
+
+    @Override
+    public void enableProcessorMetrics(final Cursored cursor) {
+        if (eventprocessor instanceof BatchEventProcessor) {
+            final BatchEventProcessor<?> batchEventProcessor = (BatchEventProcessor<?>) eventprocessor;
+            if (batchEventProcessor.getProcessorMetrics() == null) {
+                batchEventProcessor.setProcessorMetrics(new ProcessorMetrics(cursor));
+            }
+        }
+    }
+
+    @Override
+    public ProcessorMetrics[] getProcessorMetrics() {
+        if (eventprocessor instanceof BatchEventProcessor) {
+            final ProcessorMetrics metrics = ((BatchEventProcessor<?>) eventprocessor).getProcessorMetrics();
+            if (metrics != null) {
+                return new ProcessorMetrics[]{metrics};
+            }
+        }
+        return new ProcessorMetrics[0];
+    }
+
+    @Override
+    public void enableLatencyTracing(final LatencyTracer tracer, final String name) {
+        if (eventprocessor instanceof BatchEventProcessor) {
+            final BatchEventProcessor<?> batchEventProcessor = (BatchEventProcessor<?>) eventprocessor;
+            if (batchEventProcessor.getLatencyStage() == null) {
+                batchEventProcessor.setLatencyStage(tracer.newStage(name));
+            }
+        }
+    }
 }
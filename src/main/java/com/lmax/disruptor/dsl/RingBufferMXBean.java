@@ -0,0 +1,80 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+/**
+ * Management interface of the {@link com.lmax.disruptor.RingBuffer} of a {@link Disruptor}, registered by
+ * {@link Disruptor#registerMBeans(String)}.
+ *
+ * 通过JMX暴露的ringBuffer状态
+ */
+public interface RingBufferMXBean {
+    long getCursor();
+
+    int getBufferSize();
+
+    long getRemainingCapacity();
+
+    long getMinimumGatingSequence();
+
+    /**
+     * @return how far the slowest running consumer at the end of a chain is behind the cursor.
+     */
+    long getBacklog();
+
+    String getWaitStrategy();
+
+    boolean isSequencerStatsEnabled();
+
+    /**
+     * @return the number of claims made by publishers, <code>-1</code> if sequencer stats are not enabled.
+     */
+    long getClaims();
+
+    /**
+     * @return the number of claims retried after losing a race with another publisher, <code>-1</code> if sequencer
+     * stats are not enabled.
+     */
+    long getCasFailures();
+
+    /**
+     * @return the number of refreshes of the cached gating sequence, <code>-1</code> if sequencer stats are not enabled.
+     */
+    long getGatingCacheMisses();
+
+    /**
+     * @return the number of times publishers parked on a full ring, <code>-1</code> if sequencer stats are not enabled.
+     */
+    long getFullRingParks();
+
+    /**
+     * @return the time publishers spent parked on a full ring in nanoseconds, <code>-1</code> if sequencer stats are
+     * not enabled.
+     */
+    long getFullRingParkNanos();
+
+    /**
+     * @return the estimated time in nanoseconds until publishers would block on a full ring, <code>-1</code> if
+     * capacity forecasting is not enabled.
+     */
+    long getEstimatedTimeToFullNanos();
+
+    /**
+     * @return the estimated time in nanoseconds for the slowest consumer to drain the backlog, <code>-1</code> if
+     * capacity forecasting is not enabled.
+     */
+    long getEstimatedDrainTimeNanos();
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+import com.lmax.disruptor.CapacityForecaster;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SequencerStats;
+
+/**
+ * Reads the state of a ring buffer for {@link RingBufferMXBean}, every attribute is read live.
+ *
+ * 读取ringBuffer状态的MXBean实现
+ */
+final class RingBufferStatus implements RingBufferMXBean {
+    private final RingBuffer<?> ringBuffer;
+    private final ConsumerRepository<?> consumerRepository;
+
+    RingBufferStatus(final RingBuffer<?> ringBuffer, final ConsumerRepository<?> consumerRepository) {
+        this.ringBuffer = ringBuffer;
+        this.consumerRepository = consumerRepository;
+    }
+
+    @Override
+    public long getCursor()
+    {
+        return ringBuffer.getCursor();
+    }
+
+    @Override
+    public int getBufferSize()
+    {
+        return ringBuffer.getBufferSize();
+    }
+
+    @Override
+    public long getRemainingCapacity()
+    {
+        return ringBuffer.remainingCapacity();
+    }
+
+    @Override
+    public long getMinimumGatingSequence()
+    {
+        return ringBuffer.getMinimumGatingSequence();
+    }
+
+    @Override
+    public long getBacklog()
+    {
+        return consumerRepository.getBacklog(ringBuffer.getCursor(), false);
+    }
+
+    @Override
+    public String getWaitStrategy()
+    {
+        return nameOf(ringBuffer.getWaitStrategy());
+    }
+
+    @Override
+    public boolean isSequencerStatsEnabled()
+    {
+        return ringBuffer.getSequencerStats() != null;
+    }
+
+    @Override
+    public long getClaims() {
+        final SequencerStats stats = ringBuffer.getSequencerStats();
+        return stats != null ? stats.getClaims() : -1L;
+    }
+
+    @Override
+    public long getCasFailures() {
+        final SequencerStats stats = ringBuffer.getSequencerStats();
+        return stats != null ? stats.getCasFailures() : -1L;
+    }
+
+    @Override
+    public long getGatingCacheMisses() {
+        final SequencerStats stats = ringBuffer.getSequencerStats();
+        return stats != null ? stats.getGatingCacheMisses() : -1L;
+    }
+
+    @Override
+    public long getFullRingParks() {
+        final SequencerStats stats = ringBuffer.getSequencerStats();
+        return stats != null ? stats.getFullRingParks() : -1L;
+    }
+
+    @Override
+    public long getFullRingParkNanos() {
+        final SequencerStats stats = ringBuffer.getSequencerStats();
+        return stats != null ? stats.getFullRingParkNanos() : -1L;
+    }
+
+    @Override
+    public long getEstimatedTimeToFullNanos() {
+        final CapacityForecaster forecaster = ringBuffer.getCapacityForecaster();
+        return forecaster != null ? forecaster.getEstimatedTimeToFullNanos() : -1L;
+    }
+
+    @Override
+    public long getEstimatedDrainTimeNanos() {
+        final CapacityForecaster forecaster = ringBuffer.getCapacityForecaster();
+        return forecaster != null ? forecaster.getEstimatedDrainTimeNanos() : -1L;
+    }
+
+    static String nameOf(final Object object)
+    {
+        return object != null ? object.getClass().getSimpleName() : null;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+import java.util.Arrays;
+
+/**
+ * <p>A point in time view of a {@link Disruptor}: the cursor of its ring buffer, and the sequence and state of each of
+ * its consumers, filled by {@link Disruptor#snapshot(TopologySnapshot)}.</p>
+ *
+ * <p>A snapshot is meant to be reused by one monitoring thread.  Refilling it does not allocate unless the number of
+ * consumers has changed, so it can be taken at a high rate.  The consumer sequences are read before the cursor, so
+ * the lag of a consumer is never negative, but the sequences are not read atomically with each other.</p>
+ *
+ * Disruptor拓扑快照，可重复使用，填充时不分配内存
+ */
+public final class TopologySnapshot {
+    private Disruptor<?> disruptor;
+    private long timestamp;
+    private long cursor;
+    private long minimumGatingSequence;
+    private int bufferSize;
+    private int consumerCount;
+    private String[] names = new String[0];
+    private long[] sequences = new long[0];
+    private boolean[] running = new boolean[0];
+    private boolean[] endOfChain = new boolean[0];
+
+    /**
+     * Size the consumer arrays, keeping them if the snapshot was last filled from the same Disruptor with the same
+     * number of consumers.
+     *
+     * @return true if the consumer names need to be filled in.
+     */
+    boolean prepare(final Disruptor<?> disruptor, final int consumerCount) {
+        if (this.disruptor == disruptor && this.consumerCount == consumerCount) {
+            return false;
+        }
+
+        this.disruptor = disruptor;
+        this.consumerCount = consumerCount;
+        if (names.length < consumerCount) {
+            names = new String[consumerCount];
+            sequences = new long[consumerCount];
+            running = new boolean[consumerCount];
+            endOfChain = new boolean[consumerCount];
+        }
+        return true;
+    }
+
+    void setConsumer(final int index, final long sequence, final boolean running, final boolean endOfChain) {
+        this.sequences[index] = sequence;
+        this.running[index] = running;
+        this.endOfChain[index] = endOfChain;
+    }
+
+    void setName(final int index, final String name)
+    {
+        names[index] = name;
+    }
+
+    void setRingBuffer(final long timestamp, final long cursor, final long minimumGatingSequence, final int bufferSize) {
+        this.timestamp = timestamp;
+        this.cursor = cursor;
+        this.minimumGatingSequence = minimumGatingSequence;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @return the value of {@link System#nanoTime()} when the snapshot was taken.
+     */
+    public long getTimestamp()
+    {
+        return timestamp;
+    }
+
+    public long getCursor()
+    {
+        return cursor;
+    }
+
+    public long getMinimumGatingSequence()
+    {
+        return minimumGatingSequence;
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    /**
+     * @return the number of free slots in the ring buffer when the snapshot was taken.
+     */
+    public long getRemainingCapacity()
+    {
+        return bufferSize - (cursor - minimumGatingSequence);
+    }
+
+    public int getConsumerCount()
+    {
+        return consumerCount;
+    }
+
+    /**
+     * @param index of the consumer, in the order the consumers were set up.
+     * @return the name of the consumer, <code>&lt;index&gt;-&lt;handler&gt;</code>.
+     */
+    public String getName(final int index)
+    {
+        return names[checkIndex(index)];
+    }
+
+    /**
+     * @param index of the consumer.
+     * @return the lowest sequence of the processors of the consumer.
+     */
+    public long getSequence(final int index)
+    {
+        return sequences[checkIndex(index)];
+    }
+
+    /**
+     * @param index of the consumer.
+     * @return how far the consumer was behind the cursor.
+     */
+    public long getLag(final int index)
+    {
+        return cursor - sequences[checkIndex(index)];
+    }
+
+    public boolean isRunning(final int index)
+    {
+        return running[checkIndex(index)];
+    }
+
+    public boolean isEndOfChain(final int index)
+    {
+        return endOfChain[checkIndex(index)];
+    }
+
+    /**
+     * @return how far the slowest running consumer at the end of a chain was behind the cursor.
+     */
+    public long getBacklog() {
+        long backlog = 0;
+        for (int i = 0; i < consumerCount; i++) {
+            if (running[i] && endOfChain[i]) {
+                backlog = Math.max(backlog, cursor - sequences[i]);
+            }
+        }
+        return backlog;
+    }
+
+    private int checkIndex(final int index) {
+        if (index >= consumerCount) {
+            throw new IndexOutOfBoundsException("index " + index + " is not less than " + consumerCount);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "TopologySnapshot{" +
+            "cursor=" + cursor +
+            ", minimumGatingSequence=" + minimumGatingSequence +
+            ", bufferSize=" + bufferSize +
+            ", names=" + Arrays.toString(Arrays.copyOf(names, consumerCount)) +
+            ", sequences=" + Arrays.toString(Arrays.copyOf(sequences, consumerCount)) +
+            '}';
+    }
+}
@@ -1,6 +1,7 @@
 package com.lmax.disruptor.dsl;
 
 import com.lmax.disruptor.*;
+import com.lmax.disruptor.util.Util;
 
 import java.util.concurrent.Executor;
 
@@ -8,12 +9,17 @@ class WorkerPoolInfo<T> implements ConsumerInfo
 {
     private final WorkerPool<T> workerPool;
     private final SequenceBarrier sequenceBarrier;
+    /**
+     * workerPool的序号是固定的，缓存起来避免每次读取时分配数组
+     */
+    private final Sequence[] workerSequences;
     private boolean endOfChain = true;
 
     WorkerPoolInfo(final WorkerPool<T> workerPool, final SequenceBarrier sequenceBarrier)
     {
         this.workerPool = workerPool;
         this.sequenceBarrier = sequenceBarrier;
+        this.workerSequences = workerPool.getWorkerSequences();
     }
 
     @Override
@@ -22,6 +28,12 @@ class WorkerPoolInfo<T> implements ConsumerInfo
         return workerPool.getWorkerSequences();
     }
 
+    @Override
+    public long getMinimumSequence()
+    {
+        return Util.getMinimumSequence(workerSequences);
+    }
+
     @Override
     public SequenceBarrier getBarrier()
     {
@@ -57,4 +69,22 @@ class WorkerPoolInfo<T> implements ConsumerInfo
     {
         return workerPool.isRunning();
     }
+
+    @Override
+    public void enableProcessorMetrics(final Cursored cursor)
+    {
+        workerPool.enableProcessorMetrics();
+    }
+
+    @Override
+    public ProcessorMetrics[] getProcessorMetrics()
+    {
+        return workerPool.getProcessorMetrics();
+    }
+
+    @Override
+    public void enableLatencyTracing(final LatencyTracer tracer, final String name)
+    {
+        workerPool.enableLatencyTracing(tracer, name);
+    }
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import sun.misc.Unsafe;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * <p>A fixed number of labelled long counters laid out in a memory mapped file, so that another process can read
+ * their live values with {@link MappedCountersReader} without the application serving any request.</p>
+ *
+ * <p>The file holds a header, then a label record of {@link #LABEL_LENGTH} bytes per counter, then a value record of
+ * {@link #VALUE_LENGTH} bytes per counter.  Each value has a cache line of its own, like a padded {@link
+ * com.lmax.disruptor.Sequence}, and is written with an ordered store, so setting a counter costs no more than setting
+ * a sequence.  Numbers are stored in the native byte order.</p>
+ *
+ * <p>Labels are allocated by any thread, each counter should then be set by a single thread.</p>
+ *
+ * 内存映射文件中的计数器，供外部进程零成本读取
+ */
+public final class MappedCounters {
+    static final Unsafe UNSAFE = Util.getUnsafe();
+    static final Charset LABEL_CHARSET = Charset.forName("UTF-8");
+    static final long MAGIC = 0x444953524350544EL;
+    static final int VERSION = 1;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 8;
+    static final int CAPACITY_OFFSET = 12;
+    static final int COUNT_OFFSET = 16;
+    static final int HEADER_LENGTH = 64;
+
+    /**
+     * 每个标签记录的长度，前4个字节是标签的字节数
+     */
+    public static final int LABEL_LENGTH = 128;
+    /**
+     * 每个计数器独占一个缓存行
+     */
+    public static final int VALUE_LENGTH = 64;
+
+    private static final long ADDRESS_OFFSET;
+
+    static {
+        try {
+            final Field address = Buffer.class.getDeclaredField("address");
+            ADDRESS_OFFSET = UNSAFE.objectFieldOffset(address);
+        }
+        catch (final NoSuchFieldException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private final File file;
+    /**
+     * 持有映射，防止被回收后地址失效
+     */
+    private final MappedByteBuffer buffer;
+    private final long address;
+    private final int capacity;
+    private final long valuesAddress;
+
+    private MappedCounters(final File file, final MappedByteBuffer buffer, final int capacity) {
+        this.file = file;
+        this.buffer = buffer;
+        this.address = addressOf(buffer);
+        this.capacity = capacity;
+        this.valuesAddress = address + valuesOffset(capacity);
+    }
+
+    /**
+     * Create, or truncate, a counters file and map it.  The mapping stays valid until this object is garbage
+     * collected.
+     *
+     * @param file     to hold the counters.
+     * @param capacity the maximum number of counters.
+     * @return the counters, none of them allocated.
+     * @throws IOException if the file can not be created or mapped.
+     */
+    public static MappedCounters create(final File file, final int capacity) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must not be less than 1");
+        }
+
+        final long length = fileLength(capacity);
+        final MappedByteBuffer buffer;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(0);
+            randomAccessFile.setLength(length);
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        }
+
+        final long address = addressOf(buffer);
+        UNSAFE.putInt(address + VERSION_OFFSET, VERSION);
+        UNSAFE.putInt(address + CAPACITY_OFFSET, capacity);
+        UNSAFE.putOrderedInt(null, address + COUNT_OFFSET, 0);
+        //魔数最后写入，读取方看到魔数时头部已经完整
+        UNSAFE.putLongVolatile(null, address + MAGIC_OFFSET, MAGIC);
+
+        return new MappedCounters(file, buffer, capacity);
+    }
+
+    /**
+     * Allocate the next counter, its value starts at <code>0</code>.  Labels longer than the label record are
+     * truncated.
+     *
+     * @param label naming the counter for readers.
+     * @return the id of the counter, to pass to {@link #set(int, long)}.
+     * @throws IllegalStateException if all the counters have been allocated.
+     */
+    public synchronized int allocate(final String label) {
+        final int id = getCount();
+        if (id >= capacity) {
+            throw new IllegalStateException("All " + capacity + " counters have been allocated");
+        }
+
+        final byte[] bytes = label.getBytes(LABEL_CHARSET);
+        final int length = Math.min(bytes.length, LABEL_LENGTH - 4);
+        final long labelAddress = address + labelOffset(id);
+        UNSAFE.putInt(labelAddress, length);
+        for (int i = 0; i < length; i++) {
+            UNSAFE.putByte(labelAddress + 4 + i, bytes[i]);
+        }
+        UNSAFE.putLong(valuesAddress + ((long) id * VALUE_LENGTH), 0L);
+
+        //标签写完后再发布计数
+        UNSAFE.putOrderedInt(null, address + COUNT_OFFSET, id + 1);
+        return id;
+    }
+
+    /**
+     * Set the value of a counter with an ordered store.
+     *
+     * @param counterId returned by {@link #allocate(String)}.
+     * @param value     of the counter.
+     */
+    public void set(final int counterId, final long value) {
+        UNSAFE.putOrderedLong(null, valueAddress(counterId), value);
+    }
+
+    /**
+     * @param counterId returned by {@link #allocate(String)}.
+     * @return the current value of the counter.
+     */
+    public long get(final int counterId)
+    {
+        return UNSAFE.getLongVolatile(null, valueAddress(counterId));
+    }
+
+    /**
+     * @return the number of counters allocated.
+     */
+    public int getCount()
+    {
+        return UNSAFE.getIntVolatile(null, address + COUNT_OFFSET);
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    private long valueAddress(final int counterId) {
+        if (counterId < 0 || counterId >= capacity) {
+            throw new IndexOutOfBoundsException("counterId " + counterId + " is not less than " + capacity);
+        }
+        return valuesAddress + ((long) counterId * VALUE_LENGTH);
+    }
+
+    static long addressOf(final MappedByteBuffer buffer)
+    {
+        return UNSAFE.getLong(buffer, ADDRESS_OFFSET);
+    }
+
+    static long labelOffset(final int counterId)
+    {
+        return HEADER_LENGTH + ((long) counterId * LABEL_LENGTH);
+    }
+
+    static long valuesOffset(final int capacity)
+    {
+        return labelOffset(capacity);
+    }
+
+    static long fileLength(final int capacity)
+    {
+        return valuesOffset(capacity) + ((long) capacity * VALUE_LENGTH);
+    }
+
+    @Override
+    public String toString() {
+        return "MappedCounters{" +
+            "file=" + file +
+            ", count=" + getCount() +
+            ", capacity=" + capacity +
+            '}';
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static com.lmax.disruptor.util.MappedCounters.CAPACITY_OFFSET;
+import static com.lmax.disruptor.util.MappedCounters.COUNT_OFFSET;
+import static com.lmax.disruptor.util.MappedCounters.HEADER_LENGTH;
+import static com.lmax.disruptor.util.MappedCounters.LABEL_CHARSET;
+import static com.lmax.disruptor.util.MappedCounters.LABEL_LENGTH;
+import static com.lmax.disruptor.util.MappedCounters.MAGIC;
+import static com.lmax.disruptor.util.MappedCounters.MAGIC_OFFSET;
+import static com.lmax.disruptor.util.MappedCounters.UNSAFE;
+import static com.lmax.disruptor.util.MappedCounters.VALUE_LENGTH;
+import static com.lmax.disruptor.util.MappedCounters.VERSION;
+import static com.lmax.disruptor.util.MappedCounters.VERSION_OFFSET;
+
+/**
+ * Read only view of a counters file written by {@link MappedCounters}, typically from another process.  Values are
+ * read live from the mapping, counters allocated after the file was opened become visible through {@link
+ * #getCount()}.
+ *
+ * 计数器文件的只读视图
+ */
+public final class MappedCountersReader {
+    /**
+     * 持有映射，防止被回收后地址失效
+     */
+    private final MappedByteBuffer buffer;
+    private final long address;
+    private final int capacity;
+    private final long valuesAddress;
+
+    private MappedCountersReader(final MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.address = MappedCounters.addressOf(buffer);
+        this.capacity = UNSAFE.getInt(address + CAPACITY_OFFSET);
+        this.valuesAddress = address + MappedCounters.valuesOffset(capacity);
+    }
+
+    /**
+     * Map an existing counters file read only.
+     *
+     * @param file written by {@link MappedCounters}.
+     * @return a reader of the counters.
+     * @throws IOException if the file can not be mapped or does not hold counters.
+     */
+    public static MappedCountersReader open(final File file) throws IOException {
+        final MappedByteBuffer buffer;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            final long length = randomAccessFile.length();
+            if (length < HEADER_LENGTH) {
+                throw new IOException(file + " is too short to hold counters");
+            }
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+
+        final long address = MappedCounters.addressOf(buffer);
+        if (UNSAFE.getLongVolatile(null, address + MAGIC_OFFSET) != MAGIC ||
+            UNSAFE.getInt(address + VERSION_OFFSET) != VERSION) {
+            throw new IOException(file + " does not hold counters");
+        }
+
+        final int capacity = UNSAFE.getInt(address + CAPACITY_OFFSET);
+        if (capacity < 1 || MappedCounters.fileLength(capacity) > buffer.capacity()) {
+            throw new IOException(file + " is truncated");
+        }
+
+        return new MappedCountersReader(buffer);
+    }
+
+    /**
+     * @return the number of counters allocated by the writer so far.
+     */
+    public int getCount()
+    {
+        return UNSAFE.getIntVolatile(null, address + COUNT_OFFSET);
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * @param counterId less than {@link #getCount()}.
+     * @return the label of the counter.
+     */
+    public String getLabel(final int counterId) {
+        checkAllocated(counterId);
+        final long labelAddress = address + MappedCounters.labelOffset(counterId);
+        final int length = Math.min(UNSAFE.getInt(labelAddress), LABEL_LENGTH - 4);
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = UNSAFE.getByte(labelAddress + 4 + i);
+        }
+        return new String(bytes, LABEL_CHARSET);
+    }
+
+    /**
+     * @param counterId less than {@link #getCount()}.
+     * @return the current value of the counter.
+     */
+    public long getValue(final int counterId) {
+        checkAllocated(counterId);
+        return UNSAFE.getLongVolatile(null, valuesAddress + ((long) counterId * VALUE_LENGTH));
+    }
+
+    private void checkAllocated(final int counterId) {
+        if (counterId < 0 || counterId >= getCount()) {
+            throw new IndexOutOfBoundsException("counterId " + counterId + " is not less than " + getCount());
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("MappedCountersReader{");
+        for (int i = 0, count = getCount(); i < count; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(getLabel(i)).append('=').append(getValue(i));
+        }
+        return sb.append('}').toString();
+    }
+}
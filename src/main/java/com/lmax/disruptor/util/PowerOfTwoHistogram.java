@@ -0,0 +1,179 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>A fixed size histogram of non negative long values with one bucket per power of two, intended for recording
+ * latencies in nanoseconds on hot paths.</p>
+ *
+ * <p>Recording never allocates and costs an uncontended atomic increment, or only an ordered store when the histogram
+ * has a single writer, the resolution is therefore coarse:
+ * a value is only known to lie between the lower and upper bound of its bucket.  Bucket <code>0</code> holds the value
+ * <code>0</code>, and bucket <code>i</code> holds the values from <code>2^(i-1)</code> to <code>2^i - 1</code>.</p>
+ *
+ * <p>The histogram may be read by any thread while it is being recorded to, in which case the reader sees a recent
+ * but not necessarily consistent view of the buckets.</p>
+ *
+ * 按2的幂分桶的直方图，记录时不分配内存
+ */
+public final class PowerOfTwoHistogram {
+    /**
+     * 桶的数量，覆盖long的全部非负值
+     */
+    public static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Record a value, negative values are recorded as <code>0</code>.
+     *
+     * @param value to record.
+     */
+    public void record(final long value) {
+        final long clamped = Math.max(0L, value);
+        counts.getAndIncrement(bucketFor(clamped));
+        updateMax(clamped);
+    }
+
+    /**
+     * Record a value from the only thread that records to this histogram, using ordered stores rather than atomic
+     * increments.  Must not be mixed with {@link #record(long)} or used by more than one thread.
+     *
+     * @param value to record, negative values are recorded as <code>0</code>.
+     */
+    public void recordSingleWriter(final long value) {
+        final long clamped = Math.max(0L, value);
+        final int bucket = bucketFor(clamped);
+        counts.lazySet(bucket, counts.get(bucket) + 1);
+        if (clamped > maxValue.get()) {
+            maxValue.lazySet(clamped);
+        }
+    }
+
+    /**
+     * @return the number of values recorded.
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @param bucket index of the bucket, between <code>0</code> and {@link #BUCKET_COUNT} exclusive.
+     * @return the number of values recorded in the bucket.
+     */
+    public long getCountAtBucket(final int bucket)
+    {
+        return counts.get(bucket);
+    }
+
+    /**
+     * @return the largest value recorded, or <code>0</code> if nothing has been recorded.
+     */
+    public long getMaxValue()
+    {
+        return maxValue.get();
+    }
+
+    /**
+     * Get an upper bound of the value below which the given percentage of recorded values fall.
+     *
+     * @param percentile between <code>0</code> and <code>100</code>.
+     * @return the upper bound of the bucket containing the percentile, capped at the largest recorded value.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long total = getTotalCount();
+        if (0 == total) {
+            return 0L;
+        }
+
+        final long threshold = Math.max(1L, (long) Math.ceil((Math.min(percentile, 100.0) / 100.0) * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= threshold) {
+                return Math.min(getBucketUpperBound(i), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    /**
+     * Add the counts of this histogram to another, for example to aggregate the histograms of several threads.
+     *
+     * @param other histogram to add the counts to.
+     */
+    public void addTo(final PowerOfTwoHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            final long count = counts.get(i);
+            if (0 != count) {
+                other.counts.getAndAdd(i, count);
+            }
+        }
+
+        other.updateMax(getMaxValue());
+    }
+
+    /**
+     * Clear all recorded values, values recorded concurrently with the reset may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+        maxValue.set(0L);
+    }
+
+    /**
+     * @param bucket index of the bucket.
+     * @return the largest value held by the bucket.
+     */
+    public static long getBucketUpperBound(final int bucket) {
+        return bucket >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    /**
+     * @param value a non negative value.
+     * @return the index of the bucket holding the value.
+     */
+    public static int bucketFor(final long value) {
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    private void updateMax(final long value) {
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PowerOfTwoHistogram{" +
+            "count=" + getTotalCount() +
+            ", p50=" + getValueAtPercentile(50.0) +
+            ", p99=" + getValueAtPercentile(99.0) +
+            ", max=" + getMaxValue() +
+            '}';
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to a ThreadFactory instance that creates a virtual thread for each processor on runtimes that support
+ * them (Java 21 and later), and falls back to platform daemon threads otherwise.
+ * <p>
+ * Virtual threads make a processor that is mostly idle almost free, provided it waits with a strategy that does not
+ * block inside <code>synchronized</code>, such as {@link com.lmax.disruptor.LockBlockingWaitStrategy}.
+ * 虚拟线程工厂，不支持虚拟线程的jdk上退化为守护线程
+ */
+public enum VirtualThreadFactory implements ThreadFactory {
+
+    INSTANCE;
+
+    private static final ThreadFactory VIRTUAL_THREAD_FACTORY;
+
+    static {
+        ThreadFactory threadFactory = null;
+        try {
+            // Thread.ofVirtual().factory(), looked up reflectively so that we still compile and run on older JDKs
+            final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            final Object builder = ofVirtual.invoke(null);
+            final Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            threadFactory = (ThreadFactory) factory.invoke(builder);
+        }
+        catch (final Exception ignore) {
+
+        }
+
+        VIRTUAL_THREAD_FACTORY = threadFactory;
+    }
+
+    /**
+     * @return true if threads created by this factory are virtual threads.
+     */
+    public static boolean isSupported()
+    {
+        return null != VIRTUAL_THREAD_FACTORY;
+    }
+
+    @Override
+    public Thread newThread(final Runnable r) {
+        if (null != VIRTUAL_THREAD_FACTORY) {
+            return VIRTUAL_THREAD_FACTORY.newThread(r);
+        }
+
+        return DaemonThreadFactory.INSTANCE.newThread(r);
+    }
+}
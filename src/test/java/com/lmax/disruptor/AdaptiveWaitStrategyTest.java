@@ -0,0 +1,118 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.DummySequenceBarrier;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.lmax.disruptor.support.WaitStrategyTestUtil.assertWaitForWithDelayOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveWaitStrategyTest
+{
+    @Test
+    public void shouldWaitForValue() throws Exception
+    {
+        assertWaitForWithDelayOf(50, new AdaptiveWaitStrategy());
+    }
+
+    @Test
+    public void shouldKeepWaitingForValueAsStatisticsAdapt() throws Exception
+    {
+        final AdaptiveWaitStrategy waitStrategy = new AdaptiveWaitStrategy(10, 500, TimeUnit.MICROSECONDS, 0.01);
+        for (int i = 0; i < 5; i++)
+        {
+            assertWaitForWithDelayOf(10, waitStrategy);
+        }
+    }
+
+    @Test
+    public void shouldShrinkSpinBudgetForLongWaitsAndGrowItBackForShortOnes() throws Exception
+    {
+        final long maxSpinNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        final AdaptiveWaitStrategy waitStrategy = new AdaptiveWaitStrategy(1000, 500, TimeUnit.MICROSECONDS, 1.0);
+        final DelayedSequence sequence = new DelayedSequence();
+        assertThat(waitStrategy.getSpinBudgetNanos(), is(maxSpinNanos));
+
+        for (int i = 0; i < 20; i++)
+        {
+            sequence.waitFor(waitStrategy, TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        assertThat(waitStrategy.getSpinBudgetNanos(), is(0L));
+
+        // Parked waits shorten until the gap is short enough to spin again.
+        for (int i = 0; i < 2000; i++)
+        {
+            sequence.waitFor(waitStrategy, TimeUnit.MICROSECONDS.toNanos(5));
+        }
+        final long spinBudgetNanos = waitStrategy.getSpinBudgetNanos();
+        assertTrue(spinBudgetNanos >= maxSpinNanos >> 3);
+        assertTrue(spinBudgetNanos <= maxSpinNanos);
+    }
+
+    @Test
+    public void shouldNotBusyWaitForLongerThanCpuBudget() throws Exception
+    {
+        // 1% of the 100ms window.
+        final long budgetNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        final AdaptiveWaitStrategy waitStrategy = new AdaptiveWaitStrategy(10, 500, TimeUnit.MILLISECONDS, 0.01);
+        final DelayedSequence sequence = new DelayedSequence();
+
+        long maxWindowBusyNanos = 0;
+        for (int i = 0; i < 100; i++)
+        {
+            sequence.waitFor(waitStrategy, TimeUnit.MICROSECONDS.toNanos(300));
+            maxWindowBusyNanos = Math.max(maxWindowBusyNanos, waitStrategy.getWindowBusyNanos());
+        }
+
+        assertTrue(maxWindowBusyNanos > 0);
+        // Allow for the clock only being read every few spins.
+        assertTrue(maxWindowBusyNanos <= budgetNanos + TimeUnit.MICROSECONDS.toNanos(500));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectCpuBudgetAboveOne() throws Exception
+    {
+        new AdaptiveWaitStrategy(10, 500, TimeUnit.MICROSECONDS, 1.5);
+    }
+
+    /**
+     * A sequence that becomes available a given time after each wait is requested.
+     */
+    private static final class DelayedSequence extends Sequence
+    {
+        private final SequenceBarrier barrier = new DummySequenceBarrier();
+        private long value = Sequencer.INITIAL_CURSOR_VALUE;
+        private long availableAt;
+
+        @Override
+        public long get()
+        {
+            return System.nanoTime() >= availableAt ? value : value - 1;
+        }
+
+        void waitFor(final WaitStrategy waitStrategy, final long delayNanos) throws Exception
+        {
+            availableAt = System.nanoTime() + delayNanos;
+            value++;
+            assertThat(waitStrategy.waitFor(value, this, this, barrier), is(value));
+        }
+    }
+}
@@ -17,6 +17,7 @@ package com.lmax.disruptor;
 
 import static com.lmax.disruptor.support.WaitStrategyTestUtil.assertWaitForWithDelayOf;
 
+import com.lmax.disruptor.support.StubEvent;
 import org.junit.Test;
 
 public class BusySpinWaitStrategyTest
@@ -27,4 +28,16 @@ public class BusySpinWaitStrategyTest
     {
         assertWaitForWithDelayOf(50, new BusySpinWaitStrategy());
     }
+
+    @Test(expected = AlertException.class, timeout = 1000)
+    public void shouldNoticeAlertWhileSpinning() throws Exception
+    {
+        final BusySpinWaitStrategy waitStrategy = new BusySpinWaitStrategy();
+        final RingBuffer<StubEvent> ringBuffer = RingBuffer.createSingleProducer(StubEvent.EVENT_FACTORY, 16, waitStrategy);
+        final SequenceBarrier barrier = ringBuffer.newBarrier();
+        final Sequence cursor = new Sequence();
+        barrier.alert();
+
+        waitStrategy.waitFor(0, cursor, cursor, barrier);
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.StubEvent;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.lmax.disruptor.RingBuffer.createSingleProducer;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class CapacityForecasterTest
+{
+    private final RingBuffer<StubEvent> ringBuffer = createSingleProducer(StubEvent.EVENT_FACTORY, 64);
+    private final Sequence gatingSequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+
+    @Test
+    public void shouldNotForecastUntilEnabled()
+    {
+        assertThat(ringBuffer.getCapacityForecaster(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldForecastFillingWhenConsumerIsStalled() throws Exception
+    {
+        ringBuffer.addGatingSequences(gatingSequence);
+        final CapacityForecaster forecaster = ringBuffer.enableCapacityForecast(1, 20, TimeUnit.MILLISECONDS);
+
+        publishSlowly(16);
+
+        assertTrue(forecaster.getPublishRate() > 0.0);
+        assertThat(forecaster.getDrainRate(), is(0.0));
+        final long timeToFull = forecaster.getEstimatedTimeToFullNanos();
+        assertTrue(timeToFull > 0L && timeToFull < Long.MAX_VALUE);
+        assertThat(forecaster.getEstimatedDrainTimeNanos(), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldForecastNoBacklogOnceConsumerCatchesUp() throws Exception
+    {
+        ringBuffer.addGatingSequences(gatingSequence);
+        final CapacityForecaster forecaster = ringBuffer.enableCapacityForecast(1, 20, TimeUnit.MILLISECONDS);
+        publishSlowly(16);
+
+        gatingSequence.set(ringBuffer.getCursor());
+        Thread.sleep(5L);
+
+        assertTrue(forecaster.getDrainRate() > 0.0);
+        assertThat(forecaster.getEstimatedDrainTimeNanos(), is(0L));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldSampleWhenSingleSequenceIsPublished() throws Exception
+    {
+        final CapacityForecaster forecaster = ringBuffer.enableCapacityForecast(1, 20, TimeUnit.MILLISECONDS);
+        final long lastSample = forecaster.getLastSampleNanoTime();
+        Thread.sleep(5L);
+
+        ringBuffer.publish(ringBuffer.next());
+
+        assertTrue(forecaster.getLastSampleNanoTime() > lastSample);
+    }
+
+    @Test(timeout = 5000)
+    public void shouldSampleWhenBatchIsPublished() throws Exception
+    {
+        final CapacityForecaster forecaster = ringBuffer.enableCapacityForecast(1, 20, TimeUnit.MILLISECONDS);
+        final long lastSample = forecaster.getLastSampleNanoTime();
+        Thread.sleep(5L);
+
+        final long hi = ringBuffer.next(4);
+        ringBuffer.publish(hi - 3, hi);
+
+        assertTrue(forecaster.getLastSampleNanoTime() > lastSample);
+    }
+
+    private void publishSlowly(final int count) throws InterruptedException
+    {
+        for (int i = 0; i < count; i++)
+        {
+            ringBuffer.publish(ringBuffer.next());
+            Thread.sleep(2L);
+        }
+    }
+}
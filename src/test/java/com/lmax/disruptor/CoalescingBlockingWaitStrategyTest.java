@@ -0,0 +1,90 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.DummySequenceBarrier;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.lmax.disruptor.support.WaitStrategyTestUtil.assertWaitForWithDelayOf;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CoalescingBlockingWaitStrategyTest
+{
+    @Test
+    public void shouldWaitForValue() throws Exception
+    {
+        assertWaitForWithDelayOf(50, new CoalescingBlockingWaitStrategy(8, 1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldWakeOnEverySignalWhenNotCoalescing() throws Exception
+    {
+        final CoalescingBlockingWaitStrategy waitStrategy =
+            new CoalescingBlockingWaitStrategy(1, 1, TimeUnit.MINUTES);
+        final Sequence cursor = new Sequence();
+        final CountDownLatch done = startWaiter(waitStrategy, cursor);
+
+        Thread.sleep(50);
+        cursor.set(0);
+        waitStrategy.signalAllWhenBlocking();
+
+        assertTrue(done.await(4, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldBoundLatencyOfCoalescedSignal() throws Exception
+    {
+        final CoalescingBlockingWaitStrategy waitStrategy =
+            new CoalescingBlockingWaitStrategy(1000, 200, TimeUnit.MILLISECONDS);
+        final Sequence cursor = new Sequence();
+        final CountDownLatch done = startWaiter(waitStrategy, cursor);
+
+        Thread.sleep(50);
+        cursor.set(0);
+        waitStrategy.signalAllWhenBlocking();
+
+        // The single publish is coalesced, so the waiter is only released once its bounded wait expires.
+        assertFalse(done.await(10, TimeUnit.MILLISECONDS));
+        assertTrue(done.await(4, TimeUnit.SECONDS));
+    }
+
+    private static CountDownLatch startWaiter(final WaitStrategy waitStrategy, final Sequence cursor)
+    {
+        final CountDownLatch done = new CountDownLatch(1);
+        final Thread waiter = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    waitStrategy.waitFor(0, cursor, cursor, new DummySequenceBarrier());
+                    done.countDown();
+                }
+                catch (final Exception ignore)
+                {
+                }
+            }
+        });
+        waiter.setDaemon(true);
+        waiter.start();
+        return done;
+    }
+}
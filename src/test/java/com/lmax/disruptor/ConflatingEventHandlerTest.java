@@ -0,0 +1,120 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.LongEvent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ConflatingEventHandlerTest
+{
+    private static final ConflatingEventHandler.KeyResolver<LongEvent> KEY_RESOLVER =
+        new ConflatingEventHandler.KeyResolver<LongEvent>()
+        {
+            @Override
+            public long keyFor(final LongEvent event)
+            {
+                return event.get();
+            }
+        };
+
+    private final RecordingHandler recordingHandler = new RecordingHandler();
+
+    @Test
+    public void shouldDeliverNewestEventPerKeyInSequenceOrder() throws Exception
+    {
+        final ConflatingEventHandler<LongEvent> handler =
+            new ConflatingEventHandler<LongEvent>(KEY_RESOLVER, recordingHandler);
+
+        final long[] keys = {1, 2, 1, 3, 2};
+        for (int i = 0; i < keys.length; i++)
+        {
+            handler.onEvent(event(keys[i]), i, i == keys.length - 1);
+        }
+
+        assertThat(recordingHandler.sequences.toString(), is("[2, 3, 4]"));
+        assertThat(recordingHandler.endOfBatches.toString(), is("[false, false, true]"));
+        assertThat(handler.getConflatedCount(), is(2L));
+    }
+
+    @Test
+    public void shouldStartEachBatchAfresh() throws Exception
+    {
+        final ConflatingEventHandler<LongEvent> handler =
+            new ConflatingEventHandler<LongEvent>(KEY_RESOLVER, recordingHandler);
+
+        handler.onEvent(event(7), 0, false);
+        handler.onEvent(event(7), 1, true);
+        handler.onEvent(event(7), 2, true);
+
+        assertThat(recordingHandler.sequences.toString(), is("[1, 2]"));
+    }
+
+    @Test
+    public void shouldMatchReferenceConflationWhenGrowingBeyondExpectedKeys() throws Exception
+    {
+        final ConflatingEventHandler<LongEvent> handler =
+            new ConflatingEventHandler<LongEvent>(KEY_RESOLVER, recordingHandler, 1);
+        final Random random = new Random(42);
+
+        long sequence = 0;
+        for (int batch = 0; batch < 50; batch++)
+        {
+            final int batchSize = 1 + random.nextInt(500);
+            final int keySpace = 1 + random.nextInt(100);
+            final Map<Long, Long> expected = new LinkedHashMap<Long, Long>();
+            recordingHandler.sequences.clear();
+
+            for (int i = 0; i < batchSize; i++, sequence++)
+            {
+                final long key = random.nextInt(keySpace) * 1024L;
+                expected.remove(key);
+                expected.put(key, sequence);
+                handler.onEvent(event(key), sequence, i == batchSize - 1);
+            }
+
+            assertThat(recordingHandler.sequences, is((List<Long>) new ArrayList<Long>(expected.values())));
+        }
+    }
+
+    private static LongEvent event(final long key)
+    {
+        final LongEvent event = new LongEvent();
+        event.set(key);
+        return event;
+    }
+
+    private static final class RecordingHandler implements EventHandler<LongEvent>
+    {
+        private final List<Long> sequences = new ArrayList<Long>();
+        private final List<Boolean> endOfBatches = new ArrayList<Boolean>();
+
+        @Override
+        public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+        {
+            sequences.add(sequence);
+            endOfBatches.add(endOfBatch);
+        }
+    }
+}
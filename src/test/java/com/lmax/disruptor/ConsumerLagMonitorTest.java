@@ -0,0 +1,187 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.LongEvent;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConsumerLagMonitorTest
+{
+    private final RingBuffer<LongEvent> ringBuffer = RingBuffer.createSingleProducer(LongEvent.FACTORY, 16);
+
+    @Test(timeout = 10000)
+    public void shouldDetachConsumerLaggingByMoreThanMaxSlotsAndResyncToCursor() throws Exception
+    {
+        final StuckHandler handler = new StuckHandler();
+        final BatchEventProcessor<LongEvent> processor = create(handler);
+        final AtomicLong detachedLag = new AtomicLong();
+        final ConsumerLagMonitor monitor = new ConsumerLagMonitor(
+            ringBuffer, 8, 1, TimeUnit.HOURS, new ConsumerLagMonitor.DetachListener()
+            {
+                @Override
+                public void onDetached(final BatchEventProcessor<?> detached, final long lag)
+                {
+                    detachedLag.set(lag);
+                }
+            });
+        monitor.watch(processor);
+
+        // Published before starting, so that the stuck event begins a batch of ten.
+        publish(10);
+        start(processor);
+        assertTrue(handler.stuck.await(5, TimeUnit.SECONDS));
+        monitor.check();
+
+        assertTrue(processor.isDetached());
+        assertThat(monitor.getDetachCount(), is(1L));
+        assertThat(detachedLag.get(), is(10L));
+
+        // Would block on the stuck consumer if it were still gating.
+        publish(40);
+
+        handler.release.countDown();
+        assertTrue(handler.resynced.await(5, TimeUnit.SECONDS));
+        assertThat(handler.resyncFrom, is(10L));
+        assertThat(handler.resyncTo, is(49L));
+        assertFalse(processor.isDetached());
+
+        publish(1);
+        assertTrue(handler.receivedAfterResync.await(5, TimeUnit.SECONDS));
+        // The handler returns before the processor moves its sequence.
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (ringBuffer.getMinimumGatingSequence() != 50L && System.nanoTime() < deadline)
+        {
+            Thread.yield();
+        }
+        assertThat(ringBuffer.getMinimumGatingSequence(), is(50L));
+
+        processor.halt();
+    }
+
+    @Test(timeout = 10000)
+    public void shouldDetachConsumerThatDoesNotCatchUpWithinMaxLagTime() throws Exception
+    {
+        final StuckHandler handler = new StuckHandler();
+        final BatchEventProcessor<LongEvent> processor = start(handler);
+        final ConsumerLagMonitor monitor = new ConsumerLagMonitor(ringBuffer, 100, 10, TimeUnit.MILLISECONDS, null);
+        monitor.watch(processor);
+
+        publish(2);
+        assertTrue(handler.stuck.await(5, TimeUnit.SECONDS));
+        monitor.check();
+        assertFalse(processor.isDetached());
+
+        Thread.sleep(20);
+        monitor.check();
+        assertTrue(processor.isDetached());
+
+        handler.release.countDown();
+        processor.halt();
+    }
+
+    @Test
+    public void shouldNotWatchConsumerWithUpstreamDependencies()
+    {
+        final BatchEventProcessor<LongEvent> upstream = new BatchEventProcessor<LongEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new StuckHandler());
+        final BatchEventProcessor<LongEvent> downstream = new BatchEventProcessor<LongEvent>(
+            ringBuffer, ringBuffer.newBarrier(upstream.getSequence()), new StuckHandler());
+        final ConsumerLagMonitor monitor = new ConsumerLagMonitor(ringBuffer, 8, 1, TimeUnit.HOURS, null);
+
+        assertTrue(ConsumerLagMonitor.isDetachable(upstream));
+        assertFalse(ConsumerLagMonitor.isDetachable(downstream));
+        try
+        {
+            monitor.watch(downstream);
+            fail("Should not watch a consumer with upstream dependencies");
+        }
+        catch (final IllegalArgumentException e)
+        {
+            // Expected
+        }
+    }
+
+    private BatchEventProcessor<LongEvent> start(final EventHandler<LongEvent> handler)
+    {
+        return start(create(handler));
+    }
+
+    private BatchEventProcessor<LongEvent> create(final EventHandler<LongEvent> handler)
+    {
+        final BatchEventProcessor<LongEvent> processor =
+            new BatchEventProcessor<LongEvent>(ringBuffer, ringBuffer.newBarrier(), handler);
+        ringBuffer.addGatingSequences(processor.getSequence());
+        return processor;
+    }
+
+    private BatchEventProcessor<LongEvent> start(final BatchEventProcessor<LongEvent> processor)
+    {
+        final Thread thread = new Thread(processor);
+        thread.setDaemon(true);
+        thread.start();
+        return processor;
+    }
+
+    private void publish(final int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            ringBuffer.publish(ringBuffer.next());
+        }
+    }
+
+    private static final class StuckHandler implements EventHandler<LongEvent>, ResyncAware
+    {
+        private final CountDownLatch stuck = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch resynced = new CountDownLatch(1);
+        private final CountDownLatch receivedAfterResync = new CountDownLatch(1);
+        private volatile long resyncFrom = -1;
+        private volatile long resyncTo = -1;
+
+        @Override
+        public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch) throws Exception
+        {
+            if (sequence == 0)
+            {
+                stuck.countDown();
+                release.await();
+            }
+            else if (resynced.getCount() == 0)
+            {
+                receivedAfterResync.countDown();
+            }
+        }
+
+        @Override
+        public void onResync(final long fromSequence, final long toSequence)
+        {
+            resyncFrom = fromSequence;
+            resyncTo = toSequence;
+            resynced.countDown();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.DummySequenceBarrier;
+import com.lmax.disruptor.support.LongEvent;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.lmax.disruptor.support.WaitStrategyTestUtil.assertWaitForWithDelayOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class CooperativeSpinWaitStrategyTest
+{
+    private final SpinTokenPool pool = new SpinTokenPool(1);
+
+    @Test
+    public void shouldWaitForValue() throws Exception
+    {
+        assertWaitForWithDelayOf(50, new CooperativeSpinWaitStrategy());
+    }
+
+    @Test(timeout = 5000)
+    public void shouldGiveTokenBackWhenIdle() throws Exception
+    {
+        final CooperativeSpinWaitStrategy waitStrategy =
+            new CooperativeSpinWaitStrategy(pool, new ParkingWaitStrategy(), 1, TimeUnit.MILLISECONDS);
+        final Sequence cursor = new Sequence();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        start(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    waitStrategy.waitFor(0, cursor, cursor, new DummySequenceBarrier());
+                    done.countDown();
+                }
+                catch (final Exception ignore)
+                {
+                }
+            }
+        });
+
+        Thread.sleep(100);
+        assertThat(pool.getAvailable(), is(1));
+
+        cursor.set(0);
+        waitStrategy.signalAllWhenBlocking();
+        assertTrue(done.await(4, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldGiveTokenBackWhenAlerted() throws Exception
+    {
+        final CooperativeSpinWaitStrategy waitStrategy =
+            new CooperativeSpinWaitStrategy(pool, new ParkingWaitStrategy(), 1, TimeUnit.MINUTES);
+        final RingBuffer<LongEvent> ringBuffer =
+            RingBuffer.createSingleProducer(LongEvent.FACTORY, 4, waitStrategy);
+        final SequenceBarrier barrier = ringBuffer.newBarrier();
+        final CountDownLatch alerted = new CountDownLatch(1);
+
+        start(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    barrier.waitFor(0);
+                }
+                catch (final AlertException e)
+                {
+                    alerted.countDown();
+                }
+                catch (final Exception ignore)
+                {
+                }
+            }
+        });
+
+        while (pool.getAvailable() != 0)
+        {
+            Thread.yield();
+        }
+
+        barrier.alert();
+        assertTrue(alerted.await(4, TimeUnit.SECONDS));
+        assertThat(pool.getAvailable(), is(1));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldGiveTokenBackWhenBusyProcessorIsHalted() throws Exception
+    {
+        final CooperativeSpinWaitStrategy waitStrategy =
+            new CooperativeSpinWaitStrategy(pool, new ParkingWaitStrategy(), 1, TimeUnit.MINUTES);
+        final RingBuffer<LongEvent> ringBuffer =
+            RingBuffer.createSingleProducer(LongEvent.FACTORY, 16, waitStrategy);
+        final CountDownLatch handling = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final BatchEventProcessor<LongEvent> processor = new BatchEventProcessor<LongEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new EventHandler<LongEvent>()
+            {
+                @Override
+                public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+                    throws Exception
+                {
+                    handling.countDown();
+                    release.await();
+                }
+            });
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        final Thread thread = new Thread(processor);
+        thread.setDaemon(true);
+        thread.start();
+        while (pool.getAvailable() != 0)
+        {
+            Thread.yield();
+        }
+
+        // Halted between waits, while the handler is busy, so the barrier is alerted before the next wait starts.
+        ringBuffer.publish(ringBuffer.next());
+        assertTrue(handling.await(4, TimeUnit.SECONDS));
+        processor.halt();
+        release.countDown();
+        thread.join();
+
+        assertThat(pool.getAvailable(), is(1));
+    }
+
+    private static void start(final Runnable runnable)
+    {
+        final Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
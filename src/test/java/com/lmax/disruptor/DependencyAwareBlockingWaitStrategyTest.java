@@ -0,0 +1,134 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.support.DummySequenceBarrier;
+import com.lmax.disruptor.support.LongEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class DependencyAwareBlockingWaitStrategyTest
+{
+    // Long enough that only signals can move events through within the test timeouts.
+    private final DependencyAwareBlockingWaitStrategy waitStrategy =
+        new DependencyAwareBlockingWaitStrategy(1, TimeUnit.MINUTES);
+
+    @Test(timeout = 5000)
+    public void shouldWakeDownstreamWaiterWhenDependencyProgresses() throws Exception
+    {
+        final Sequence cursor = new Sequence(0);
+        final Sequence upstream = new Sequence();
+        final Sequence dependent = new FixedSequenceGroup(new Sequence[]{upstream});
+        final AtomicLong result = new AtomicLong(-1);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        final Thread waiter = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    result.set(waitStrategy.waitFor(0, cursor, dependent, new DummySequenceBarrier()));
+                }
+                catch (final Exception ignore)
+                {
+                }
+                done.countDown();
+            }
+        });
+        waiter.setDaemon(true);
+        waiter.start();
+
+        Thread.sleep(50);
+        upstream.set(0);
+        waitStrategy.signalProgressWhenBlocking(upstream);
+
+        assertTrue(done.await(4, TimeUnit.SECONDS));
+        assertThat(result.get(), is(0L));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldMoveEventsThroughPipelineAndHaltPromptly() throws Exception
+    {
+        final int iterations = 10000;
+        final Disruptor<LongEvent> disruptor = new Disruptor<LongEvent>(
+            LongEvent.FACTORY, 64, DaemonThreadFactory.INSTANCE, ProducerType.SINGLE, waitStrategy);
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicLong failures = new AtomicLong();
+
+        disruptor
+            .handleEventsWith(new StageHandler(0))
+            .then(new StageHandler(1))
+            .then(new EventHandler<LongEvent>()
+            {
+                @Override
+                public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    if (event.get() != 2)
+                    {
+                        failures.incrementAndGet();
+                    }
+                    if (sequence == iterations - 1)
+                    {
+                        done.countDown();
+                    }
+                }
+            });
+        final RingBuffer<LongEvent> ringBuffer = disruptor.start();
+
+        for (int i = 0; i < iterations; i++)
+        {
+            final long sequence = ringBuffer.next();
+            ringBuffer.get(sequence).set(0);
+            ringBuffer.publish(sequence);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertThat(failures.get(), is(0L));
+
+        disruptor.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    private static final class StageHandler implements EventHandler<LongEvent>
+    {
+        private final long expected;
+
+        StageHandler(final long expected)
+        {
+            this.expected = expected;
+        }
+
+        @Override
+        public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+        {
+            if (event.get() == expected)
+            {
+                event.set(expected + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.support.LongEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class DutyCycleSchedulerTest
+{
+    private final DutyCycleScheduler scheduler = new DutyCycleScheduler(DaemonThreadFactory.INSTANCE, 2);
+
+    @After
+    public void tearDown() throws Exception
+    {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void shouldMultiplexMoreHandlersThanThreads() throws Exception
+    {
+        final int iterations = 1000;
+        final int handlerCount = 6;
+        final Disruptor<LongEvent> disruptor = new Disruptor<LongEvent>(
+            LongEvent.FACTORY, 16, scheduler, ProducerType.SINGLE, new BlockingWaitStrategy());
+
+        final CountDownLatch latch = new CountDownLatch(handlerCount);
+        @SuppressWarnings("unchecked")
+        final EventHandler<LongEvent>[] handlers = new EventHandler[handlerCount];
+        for (int i = 0; i < handlerCount; i++)
+        {
+            handlers[i] = new CountingHandler(iterations, latch);
+        }
+        disruptor.handleEventsWith(handlers);
+        disruptor.start();
+
+        publish(disruptor.getRingBuffer(), iterations);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        disruptor.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldRespectDependenciesBetweenMultiplexedHandlers() throws Exception
+    {
+        final int iterations = 1000;
+        final Disruptor<LongEvent> disruptor = new Disruptor<LongEvent>(
+            LongEvent.FACTORY, 16, scheduler, ProducerType.SINGLE, new BlockingWaitStrategy());
+
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        disruptor
+            .handleEventsWith(new EventHandler<LongEvent>()
+            {
+                @Override
+                public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    event.set(-event.get() - 1);
+                }
+            })
+            .then(new EventHandler<LongEvent>()
+            {
+                @Override
+                public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    if (event.get() != -sequence - 1)
+                    {
+                        failures.incrementAndGet();
+                    }
+                    if (sequence == iterations - 1)
+                    {
+                        latch.countDown();
+                    }
+                }
+            });
+        disruptor.start();
+
+        publish(disruptor.getRingBuffer(), iterations);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertThat(failures.get(), is(0));
+        disruptor.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldStopRunningProcessorOnceHalted() throws Exception
+    {
+        final RingBuffer<LongEvent> ringBuffer = RingBuffer.createSingleProducer(LongEvent.FACTORY, 16);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final PollingEventProcessor<LongEvent> processor = new PollingEventProcessor<LongEvent>(
+            ringBuffer, ringBuffer.newPoller(), new CountingHandler(1, latch));
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        scheduler.execute(processor);
+        publish(ringBuffer, 1);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(processor.isRunning());
+
+        processor.halt();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (processor.isRunning() && System.nanoTime() < deadline)
+        {
+            Thread.sleep(1);
+        }
+        assertFalse(processor.isRunning());
+    }
+
+    @Test(timeout = 5000)
+    public void shouldPassPropagatedExceptionToUncaughtExceptionHandler() throws Exception
+    {
+        final CountDownLatch reported = new CountDownLatch(1);
+        final AtomicReference<Throwable> uncaught = new AtomicReference<Throwable>();
+        final DutyCycleScheduler reportingScheduler = new DutyCycleScheduler(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(final Runnable runnable)
+            {
+                final Thread thread = DaemonThreadFactory.INSTANCE.newThread(runnable);
+                thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler()
+                {
+                    @Override
+                    public void uncaughtException(final Thread t, final Throwable ex)
+                    {
+                        uncaught.set(ex);
+                        reported.countDown();
+                    }
+                });
+                return thread;
+            }
+        }, 1);
+        final IllegalStateException failure = new IllegalStateException("fail");
+        final RingBuffer<LongEvent> ringBuffer = RingBuffer.createSingleProducer(LongEvent.FACTORY, 16);
+        final PollingEventProcessor<LongEvent> processor = new PollingEventProcessor<LongEvent>(
+            ringBuffer, ringBuffer.newPoller(), new EventHandler<LongEvent>()
+            {
+                @Override
+                public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    throw failure;
+                }
+            });
+        processor.setExceptionHandler(new ExceptionHandler<Object>()
+        {
+            @Override
+            public void handleEventException(final Throwable ex, final long sequence, final Object event)
+            {
+                throw new RuntimeException(ex);
+            }
+
+            @Override
+            public void handleOnStartException(final Throwable ex)
+            {
+            }
+
+            @Override
+            public void handleOnShutdownException(final Throwable ex)
+            {
+            }
+        });
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        try
+        {
+            reportingScheduler.execute(processor);
+            publish(ringBuffer, 1);
+
+            assertTrue(reported.await(4, TimeUnit.SECONDS));
+            assertThat(uncaught.get().getCause(), is((Throwable) failure));
+        }
+        finally
+        {
+            reportingScheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldFlagLastEventOfEveryDutyCycleAsEndOfBatch() throws Exception
+    {
+        final RingBuffer<LongEvent> ringBuffer = RingBuffer.createSingleProducer(LongEvent.FACTORY, 16);
+        final List<Long> endsOfBatch = new ArrayList<Long>();
+        final PollingEventProcessor<LongEvent> processor = new PollingEventProcessor<LongEvent>(
+            ringBuffer, ringBuffer.newPoller(), new EventHandler<LongEvent>()
+            {
+                @Override
+                public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    if (endOfBatch)
+                    {
+                        endsOfBatch.add(sequence);
+                    }
+                }
+            }, 4, new BusySpinIdleStrategy());
+        ringBuffer.addGatingSequences(processor.getSequence());
+        publish(ringBuffer, 10);
+
+        processor.onStart();
+        assertThat(processor.doWork(), is(4));
+        assertThat(processor.doWork(), is(4));
+        assertThat(processor.doWork(), is(2));
+
+        assertThat(endsOfBatch, is(Arrays.asList(3L, 7L, 9L)));
+    }
+
+    private static void publish(final RingBuffer<LongEvent> ringBuffer, final int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            final long sequence = ringBuffer.next();
+            ringBuffer.get(sequence).set(sequence);
+            ringBuffer.publish(sequence);
+        }
+    }
+
+    private static final class CountingHandler implements EventHandler<LongEvent>
+    {
+        private final int expected;
+        private final CountDownLatch latch;
+        private long nextSequence = 0;
+
+        CountingHandler(final int expected, final CountDownLatch latch)
+        {
+            this.expected = expected;
+            this.latch = latch;
+        }
+
+        @Override
+        public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+        {
+            if (sequence != nextSequence++)
+            {
+                throw new IllegalStateException("Out of order: " + sequence);
+            }
+            if (nextSequence == expected)
+            {
+                latch.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.LongEvent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class EventPollerRunnerTest
+{
+    @Test
+    public void shouldCountPollersThatProcessedEvents() throws Exception
+    {
+        final RingBuffer<LongEvent> first = RingBuffer.createSingleProducer(LongEvent.FACTORY, 16);
+        final RingBuffer<LongEvent> second = RingBuffer.createSingleProducer(LongEvent.FACTORY, 16);
+        final AtomicLong count = new AtomicLong();
+        final EventPollerRunner runner = new EventPollerRunner(new BusySpinIdleStrategy())
+            .add(poller(first), new CountingHandler(count))
+            .add(poller(second), new CountingHandler(count));
+
+        assertThat(runner.doWork(), is(0));
+
+        first.publish(first.next());
+        assertThat(runner.doWork(), is(1));
+
+        first.publish(first.next());
+        second.publish(second.next());
+        assertThat(runner.doWork(), is(2));
+        assertThat(count.get(), is(3L));
+    }
+
+    @Test
+    public void shouldSkipFailedEventWhenExceptionHandlerReturns() throws Exception
+    {
+        final RingBuffer<LongEvent> ringBuffer = RingBuffer.createSingleProducer(LongEvent.FACTORY, 16);
+        final List<Long> handled = new ArrayList<Long>();
+        final List<Long> failed = new ArrayList<Long>();
+        final EventPoller<LongEvent> poller = poller(ringBuffer);
+        final EventPollerRunner runner = new EventPollerRunner(new BusySpinIdleStrategy())
+            .add(poller, new EventPoller.Handler<LongEvent>()
+            {
+                @Override
+                public boolean onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    if (sequence == 1)
+                    {
+                        throw new IllegalStateException("poison");
+                    }
+                    handled.add(sequence);
+                    return true;
+                }
+            });
+        runner.setExceptionHandler(new ExceptionHandler<Object>()
+        {
+            @Override
+            public void handleEventException(final Throwable ex, final long sequence, final Object event)
+            {
+                failed.add(sequence);
+            }
+
+            @Override
+            public void handleOnStartException(final Throwable ex)
+            {
+            }
+
+            @Override
+            public void handleOnShutdownException(final Throwable ex)
+            {
+            }
+        });
+
+        for (int i = 0; i < 3; i++)
+        {
+            ringBuffer.publish(ringBuffer.next());
+        }
+
+        assertThat(runner.doWork(), is(1));
+        assertThat(poller.getSequence().get(), is(1L));
+        assertThat(runner.doWork(), is(1));
+        assertThat(runner.doWork(), is(0));
+
+        assertThat(handled, is(Arrays.asList(0L, 2L)));
+        assertThat(failed, is(Collections.singletonList(1L)));
+        assertThat(poller.getSequence().get(), is(2L));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldDrivePollersUntilHalted() throws Exception
+    {
+        final RingBuffer<LongEvent> ringBuffer = RingBuffer.createSingleProducer(LongEvent.FACTORY, 16);
+        final AtomicLong count = new AtomicLong();
+        final EventPollerRunner runner = new EventPollerRunner(new SleepingIdleStrategy(100, TimeUnit.MICROSECONDS))
+            .add(poller(ringBuffer), new CountingHandler(count));
+        final CountDownLatch stopped = new CountDownLatch(1);
+
+        final Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                runner.run();
+                stopped.countDown();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+
+        for (int i = 0; i < 100; i++)
+        {
+            ringBuffer.publish(ringBuffer.next());
+        }
+
+        while (count.get() != 100)
+        {
+            Thread.yield();
+        }
+
+        runner.halt();
+        assertTrue(stopped.await(4, TimeUnit.SECONDS));
+        assertFalse(runner.isRunning());
+    }
+
+    private static EventPoller<LongEvent> poller(final RingBuffer<LongEvent> ringBuffer)
+    {
+        final EventPoller<LongEvent> poller = ringBuffer.newPoller();
+        ringBuffer.addGatingSequences(poller.getSequence());
+        return poller;
+    }
+
+    private static final class CountingHandler implements EventPoller.Handler<LongEvent>
+    {
+        private final AtomicLong count;
+
+        CountingHandler(final AtomicLong count)
+        {
+            this.count = count;
+        }
+
+        @Override
+        public boolean onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+        {
+            count.incrementAndGet();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.StubEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class FlightRecorderEventsTest
+{
+    private Object recording;
+    private File dump;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        try
+        {
+            Class.forName("jdk.jfr.EventFactory");
+        }
+        catch (final ClassNotFoundException e)
+        {
+            assumeTrue(false);
+        }
+
+        dump = File.createTempFile("disruptor", ".jfr");
+        recording = Class.forName("jdk.jfr.Recording").getDeclaredConstructor().newInstance();
+        invoke(recording, "enable", "com.lmax.disruptor.ProducerStall");
+        invoke(recording, "enable", "com.lmax.disruptor.LongBatch");
+        invoke(recording, "enable", "com.lmax.disruptor.FatalException");
+        invoke(recording, "start");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        if (recording != null)
+        {
+            invoke(recording, "close");
+        }
+        if (dump != null)
+        {
+            dump.delete();
+        }
+    }
+
+    @Test
+    public void shouldRecordFatalExceptions() throws Exception
+    {
+        final Logger logger = Logger.getLogger("FlightRecorderEventsTest");
+        logger.setLevel(Level.OFF);
+        try
+        {
+            new FatalExceptionHandler(logger).handleEventException(new IllegalStateException("boom"), 7L, null);
+        }
+        catch (final RuntimeException ignore)
+        {
+        }
+
+        assertThat(recordedEventNames(), hasItem("com.lmax.disruptor.FatalException"));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldRecordProducerStallsOnAFullRing() throws Exception
+    {
+        final RingBuffer<StubEvent> ringBuffer = RingBuffer.createSingleProducer(StubEvent.EVENT_FACTORY, 4);
+        final Sequence gatingSequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+        ringBuffer.addGatingSequences(gatingSequence);
+        for (int i = 0; i < 4; i++)
+        {
+            ringBuffer.publish(ringBuffer.next());
+        }
+
+        final Thread consumer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(50);
+                }
+                catch (final InterruptedException ignore)
+                {
+                }
+                gatingSequence.set(0);
+            }
+        });
+        consumer.start();
+        ringBuffer.publish(ringBuffer.next());
+
+        assertThat(recordedEventNames(), hasItem("com.lmax.disruptor.ProducerStall"));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldRecordBatchesLongerThanTheThreshold() throws Exception
+    {
+        assertTrue(FlightRecorderEvents.isLongBatchRecorded());
+
+        final RingBuffer<StubEvent> ringBuffer = RingBuffer.createSingleProducer(StubEvent.EVENT_FACTORY, 4);
+        final CountDownLatch handled = new CountDownLatch(1);
+        final BatchEventProcessor<StubEvent> processor = new BatchEventProcessor<StubEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new EventHandler<StubEvent>()
+            {
+                @Override
+                public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+                    throws Exception
+                {
+                    TimeUnit.NANOSECONDS.sleep(FlightRecorderEvents.LONG_BATCH_THRESHOLD_NANOS + TimeUnit.MILLISECONDS.toNanos(5));
+                    handled.countDown();
+                }
+            });
+        ringBuffer.addGatingSequences(processor.getSequence());
+        ringBuffer.publish(ringBuffer.next());
+
+        final Thread thread = new Thread(processor);
+        thread.start();
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+        // The batch is recorded once it ends, the processor only stops after that.
+        processor.halt();
+        thread.join();
+
+        assertThat(recordedEventNames(), hasItem("com.lmax.disruptor.LongBatch"));
+    }
+
+    private List<String> recordedEventNames() throws Exception
+    {
+        invoke(recording, "stop");
+        final Method dumpMethod = recording.getClass().getMethod("dump", Class.forName("java.nio.file.Path"));
+        dumpMethod.invoke(recording, dump.toPath());
+
+        final Method readAllEvents = Class.forName("jdk.jfr.consumer.RecordingFile")
+            .getMethod("readAllEvents", Class.forName("java.nio.file.Path"));
+        final List<String> names = new ArrayList<String>();
+        for (final Object event : (List<?>) readAllEvents.invoke(null, dump.toPath()))
+        {
+            final Object eventType = invoke(event, "getEventType");
+            names.add((String) invoke(eventType, "getName"));
+        }
+        return names;
+    }
+
+    private static Object invoke(final Object target, final String name, final Object... args) throws Exception
+    {
+        for (final Method method : target.getClass().getMethods())
+        {
+            if (method.getName().equals(name) && isApplicable(method.getParameterTypes(), args))
+            {
+                method.setAccessible(true);
+                return method.invoke(target, args);
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    private static boolean isApplicable(final Class<?>[] parameterTypes, final Object[] args)
+    {
+        if (parameterTypes.length != args.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < args.length; i++)
+        {
+            if (!parameterTypes[i].isInstance(args[i]))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.DummySequenceBarrier;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.lmax.disruptor.support.WaitStrategyTestUtil.assertWaitForWithDelayOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class HybridWaitStrategyTest
+{
+    @Test
+    public void shouldWaitForValue() throws Exception
+    {
+        assertWaitForWithDelayOf(50, new HybridWaitStrategy());
+    }
+
+    @Test(timeout = 5000)
+    public void shouldCountWaitsResolvedWhileSpinning() throws Exception
+    {
+        final HybridWaitStrategy waitStrategy = new HybridWaitStrategy(1, 1, 1, TimeUnit.MINUTES);
+        final Sequence cursor = new Sequence();
+        final SequenceBarrier barrier = new DummySequenceBarrier();
+
+        publishLater(waitStrategy, cursor, 10);
+
+        assertThat(waitStrategy.waitFor(0, cursor, cursor, barrier), is(0L));
+        assertThat(waitStrategy.getWaitStats(barrier).getSpinResolved(), is(1L));
+        assertThat(waitStrategy.getWaitStats(barrier).getParkResolved(), is(0L));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldRecordWakeLatencyOfParkedWaiters() throws Exception
+    {
+        // Long enough that only a signal can wake the waiter within the test timeout.
+        final HybridWaitStrategy waitStrategy = new HybridWaitStrategy(0, 0, 1, TimeUnit.MINUTES);
+        final Sequence cursor = new Sequence();
+        final SequenceBarrier barrier = new DummySequenceBarrier();
+
+        publishLater(waitStrategy, cursor, 50);
+
+        assertThat(waitStrategy.waitFor(0, cursor, cursor, barrier), is(0L));
+        final HybridWaitStrategy.WaitStats stats = waitStrategy.getWaitStats(barrier);
+        assertThat(stats.getSpinResolved(), is(0L));
+        assertThat(stats.getYieldResolved(), is(0L));
+        assertThat(stats.getParkResolved(), is(1L));
+        assertThat(stats.getWakeLatency().getTotalCount(), is(1L));
+    }
+
+    @Test
+    public void shouldNotCountWaitsForAvailableSequences() throws Exception
+    {
+        final HybridWaitStrategy waitStrategy = new HybridWaitStrategy();
+        final Sequence cursor = new Sequence(3);
+        final SequenceBarrier barrier = new DummySequenceBarrier();
+
+        assertThat(waitStrategy.waitFor(2, cursor, cursor, barrier), is(3L));
+        assertThat(waitStrategy.getWaitStats(barrier), is(nullValue()));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldWakeOnlyWaitersGatedOnSequenceThatProgressed() throws Exception
+    {
+        final HybridWaitStrategy waitStrategy = new HybridWaitStrategy(0, 0, 1, TimeUnit.MINUTES);
+        final Sequence cursor = new Sequence(0);
+        final Sequence first = new Sequence();
+        final Sequence second = new Sequence();
+        final Thread firstWaiter = waitLater(waitStrategy, cursor, first);
+        final Thread secondWaiter = waitLater(waitStrategy, cursor, second);
+        awaitParked(firstWaiter);
+        awaitParked(secondWaiter);
+
+        first.set(0);
+        second.set(0);
+        waitStrategy.signalProgressWhenBlocking(first);
+        firstWaiter.join();
+
+        Thread.sleep(50);
+        assertTrue(secondWaiter.isAlive());
+
+        waitStrategy.signalProgressWhenBlocking(second);
+        secondWaiter.join();
+    }
+
+    private static Thread waitLater(final WaitStrategy waitStrategy, final Sequence cursor, final Sequence sequence)
+    {
+        final Sequence dependentSequence = new FixedSequenceGroup(new Sequence[]{sequence});
+        final Thread waiter = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    waitStrategy.waitFor(0, cursor, dependentSequence, new DummySequenceBarrier());
+                }
+                catch (final Exception e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        waiter.setDaemon(true);
+        waiter.start();
+        return waiter;
+    }
+
+    private static void awaitParked(final Thread thread)
+    {
+        while (thread.getState() != Thread.State.TIMED_WAITING)
+        {
+            Thread.yield();
+        }
+    }
+
+    private static void publishLater(final WaitStrategy waitStrategy, final Sequence cursor, final long delayMillis)
+    {
+        final Thread publisher = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(delayMillis);
+                }
+                catch (final InterruptedException ignore)
+                {
+                }
+                cursor.set(0);
+                waitStrategy.signalAllWhenBlocking();
+            }
+        });
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+}
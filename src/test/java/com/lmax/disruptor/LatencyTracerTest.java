@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.StubEvent;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyTracerTest
+{
+    @Test
+    public void shouldOnlyStampSampledSequences() throws Exception
+    {
+        final LatencyTracer tracer = new LatencyTracer(16, 4);
+
+        tracer.stamp(1);
+        tracer.stamp(4);
+        tracer.stamp(5, 9);
+
+        assertThat(tracer.getPublishTime(1), is(0L));
+        assertTrue(tracer.getPublishTime(4) != 0L);
+        assertTrue(tracer.getPublishTime(8) != 0L);
+        assertThat(tracer.getPublishTime(9), is(0L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSampleIntervalThatIsNotAPowerOfTwo() throws Exception
+    {
+        new LatencyTracer(16, 3);
+    }
+
+    @Test
+    public void shouldRecordQueueingAndServiceLatencyOfSampledEvents() throws Exception
+    {
+        final RingBuffer<StubEvent> ringBuffer = RingBuffer.createSingleProducer(StubEvent.EVENT_FACTORY, 16);
+        final LatencyTracer tracer = ringBuffer.enableLatencyTracing(2);
+        final CountDownLatch latch = new CountDownLatch(4);
+        final BatchEventProcessor<StubEvent> processor = new BatchEventProcessor<StubEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new EventHandler<StubEvent>()
+            {
+                @Override
+                public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    latch.countDown();
+                }
+            });
+        final LatencyTracer.Stage stage = tracer.newStage("handler");
+        processor.setLatencyStage(stage);
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        final Thread thread = new Thread(processor);
+        thread.start();
+        for (int i = 0; i < 4; i++)
+        {
+            ringBuffer.publishEvent(StubEvent.TRANSLATOR, i, "");
+        }
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        processor.halt();
+        thread.join();
+
+        assertThat(tracer.getStages().size(), is(1));
+        assertThat(stage.getQueueingLatency().getTotalCount(), is(2L));
+        assertThat(stage.getServiceLatency().getTotalCount(), is(2L));
+    }
+}
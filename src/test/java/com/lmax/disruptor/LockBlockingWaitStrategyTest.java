@@ -0,0 +1,66 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.DummySequenceBarrier;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.lmax.disruptor.support.WaitStrategyTestUtil.assertWaitForWithDelayOf;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LockBlockingWaitStrategyTest
+{
+    @Test
+    public void shouldWaitForValue() throws Exception
+    {
+        assertWaitForWithDelayOf(50, new LockBlockingWaitStrategy());
+    }
+
+    @Test
+    public void shouldWaitForValueWithTimeout() throws Exception
+    {
+        assertWaitForWithDelayOf(50, new LockTimeoutBlockingWaitStrategy(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldTimeoutWaitFor() throws Exception
+    {
+        final SequenceBarrier sequenceBarrier = new DummySequenceBarrier();
+
+        long theTimeout = 500;
+        LockTimeoutBlockingWaitStrategy waitStrategy = new LockTimeoutBlockingWaitStrategy(theTimeout, TimeUnit.MILLISECONDS);
+        Sequence cursor = new Sequence(5);
+        Sequence dependent = cursor;
+
+        long t0 = System.currentTimeMillis();
+
+        try
+        {
+            waitStrategy.waitFor(6, cursor, dependent, sequenceBarrier);
+            fail("TimeoutException should have been thrown");
+        }
+        catch (TimeoutException e)
+        {
+        }
+
+        long t1 = System.currentTimeMillis();
+
+        assertTrue(t1 - t0 >= theTimeout);
+    }
+}
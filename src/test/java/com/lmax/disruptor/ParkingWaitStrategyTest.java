@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.DummySequenceBarrier;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.lmax.disruptor.support.WaitStrategyTestUtil.assertWaitForWithDelayOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ParkingWaitStrategyTest
+{
+    @Test
+    public void shouldWaitForValue() throws Exception
+    {
+        assertWaitForWithDelayOf(50, new ParkingWaitStrategy());
+    }
+
+    @Test(timeout = 5000)
+    public void shouldUnparkEveryRegisteredWaiterWhenSignalled() throws Exception
+    {
+        // Long enough that only a signal can wake the waiters within the test timeout.
+        final ParkingWaitStrategy waitStrategy = new ParkingWaitStrategy(1, TimeUnit.MINUTES);
+        final Sequence cursor = new Sequence();
+        final int waiters = 3;
+        final CountDownLatch started = new CountDownLatch(waiters);
+        final CountDownLatch finished = new CountDownLatch(waiters);
+        final AtomicLong failures = new AtomicLong();
+
+        for (int i = 0; i < waiters; i++)
+        {
+            final Thread thread = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    started.countDown();
+                    try
+                    {
+                        if (waitStrategy.waitFor(0, cursor, cursor, new DummySequenceBarrier()) != 0)
+                        {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    catch (final Exception e)
+                    {
+                        failures.incrementAndGet();
+                    }
+                    finished.countDown();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        started.await();
+        Thread.sleep(50);
+        cursor.set(0);
+        waitStrategy.signalAllWhenBlocking();
+
+        assertTrue(finished.await(4, TimeUnit.SECONDS));
+        assertThat(failures.get(), is(0L));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldRecoverFromMissedSignalAfterParkTimeout() throws Exception
+    {
+        final ParkingWaitStrategy waitStrategy = new ParkingWaitStrategy(10, TimeUnit.MILLISECONDS);
+        final Sequence cursor = new Sequence();
+        final Thread publisher = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(50);
+                }
+                catch (final InterruptedException ignore)
+                {
+                }
+                cursor.set(0);
+            }
+        });
+        publisher.start();
+
+        assertThat(waitStrategy.waitFor(0, cursor, cursor, new DummySequenceBarrier()), is(0L));
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.StubEvent;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.lmax.disruptor.RingBuffer.createMultiProducer;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ProcessorMetricsTest
+{
+    private final RingBuffer<StubEvent> ringBuffer = createMultiProducer(StubEvent.EVENT_FACTORY, 16);
+
+    @Test
+    public void shouldRecordBatchesOfBatchEventProcessor() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final BatchEventProcessor<StubEvent> processor = new BatchEventProcessor<StubEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new EventHandler<StubEvent>()
+            {
+                @Override
+                public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    latch.countDown();
+                }
+            });
+        final ProcessorMetrics metrics = new ProcessorMetrics(ringBuffer);
+        processor.setProcessorMetrics(metrics);
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        ringBuffer.publish(ringBuffer.next());
+        ringBuffer.publish(ringBuffer.next());
+        ringBuffer.publish(ringBuffer.next());
+
+        final Thread thread = new Thread(processor);
+        thread.start();
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        processor.halt();
+        thread.join();
+
+        assertThat(metrics.getBatchCount(), is(1L));
+        assertThat(metrics.getEventCount(), is(3L));
+        assertThat(metrics.getLastLag(), is(3L));
+        assertThat(metrics.getBatchSizes().getMaxValue(), is(3L));
+        assertThat(metrics.getHandlerTimes().getTotalCount(), is(1L));
+        assertTrue(metrics.getWaitTimes().getTotalCount() >= 1L);
+    }
+
+    @Test
+    public void shouldMeasureLagAgainstCursorBeforeBatch() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(8);
+        final AtomicLong firstBatchLag = new AtomicLong(-1L);
+        final ProcessorMetrics metrics = new ProcessorMetrics(ringBuffer);
+        final BatchEventProcessor<StubEvent> processor = new BatchEventProcessor<StubEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new EventHandler<StubEvent>()
+            {
+                @Override
+                public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    if (sequence == 0)
+                    {
+                        // Published while the first batch is handled, so they do not count towards its lag.
+                        for (int i = 0; i < 5; i++)
+                        {
+                            ringBuffer.publish(ringBuffer.next());
+                        }
+                    }
+                    else if (sequence == 3)
+                    {
+                        firstBatchLag.set(metrics.getLastLag());
+                    }
+                    latch.countDown();
+                }
+            });
+        processor.setProcessorMetrics(metrics);
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        ringBuffer.publish(ringBuffer.next());
+        ringBuffer.publish(ringBuffer.next());
+        ringBuffer.publish(ringBuffer.next());
+
+        final Thread thread = new Thread(processor);
+        thread.start();
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        processor.halt();
+        thread.join();
+
+        assertThat(firstBatchLag.get(), is(3L));
+        assertThat(metrics.getLastLag(), is(5L));
+    }
+
+    @Test
+    public void shouldRecordEventsOfWorkProcessor() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final WorkProcessor<StubEvent> processor = new WorkProcessor<StubEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new WorkHandler<StubEvent>()
+            {
+                @Override
+                public void onEvent(final StubEvent event)
+                {
+                    latch.countDown();
+                }
+            }, new FatalExceptionHandler(), new Sequence(Sequencer.INITIAL_CURSOR_VALUE));
+        final ProcessorMetrics metrics = new ProcessorMetrics(ringBuffer);
+        processor.setProcessorMetrics(metrics);
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        final Thread thread = new Thread(processor);
+        thread.start();
+        ringBuffer.publish(ringBuffer.next());
+        ringBuffer.publish(ringBuffer.next());
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        processor.halt();
+        thread.join();
+
+        assertThat(metrics.getBatchCount(), is(2L));
+        assertThat(metrics.getEventCount(), is(2L));
+        assertThat(metrics.getBatchSizes().getCountAtBucket(1), is(2L));
+    }
+
+    @Test
+    public void shouldReportUtilisationOverRollingWindow()
+    {
+        final ProcessorMetrics metrics = new ProcessorMetrics(ringBuffer, 10, TimeUnit.SECONDS);
+        final long millis = TimeUnit.MILLISECONDS.toNanos(1);
+        final long now = System.nanoTime();
+
+        metrics.recordWait(now - 300 * millis, now - 100 * millis);
+        metrics.beginBatch(now - 100 * millis);
+        metrics.recordBatch(-1L, 0L, 1L, now - 100 * millis, now);
+
+        assertThat(metrics.getBusyNanos(), is(100 * millis));
+        assertThat(metrics.getIdleNanos(), is(200 * millis));
+        // The wait since the batch ended is in progress and counted too.
+        assertEquals(1.0 / 3.0, metrics.getUtilisation(), 0.01);
+    }
+
+    @Test
+    public void shouldCountBatchInProgressAsBusy()
+    {
+        final ProcessorMetrics metrics = new ProcessorMetrics(ringBuffer, 1, TimeUnit.SECONDS);
+        final long now = System.nanoTime();
+
+        metrics.recordWait(now - TimeUnit.SECONDS.toNanos(3), now - TimeUnit.SECONDS.toNanos(2));
+        metrics.beginBatch(now - TimeUnit.SECONDS.toNanos(2));
+
+        assertEquals(1.0, metrics.getUtilisation(), 0.0);
+    }
+
+    @Test
+    public void shouldSpreadIntervalOverTheSlotsItCovers()
+    {
+        final ProcessorMetrics metrics = new ProcessorMetrics(ringBuffer, 1, TimeUnit.SECONDS);
+        final long now = System.nanoTime();
+
+        // Only the part of the batch inside the window counts, about as long as the wait since it ended.
+        metrics.beginBatch(now - TimeUnit.MILLISECONDS.toNanos(2000));
+        metrics.recordBatch(-1L, 0L, 1L, now - TimeUnit.MILLISECONDS.toNanos(2000), now - TimeUnit.MILLISECONDS.toNanos(450));
+
+        final double utilisation = metrics.getUtilisation();
+        assertTrue(utilisation > 0.3 && utilisation < 0.6);
+    }
+
+    @Test
+    public void shouldExcludeIntervalsThatEndedBeforeTheWindow()
+    {
+        final ProcessorMetrics metrics = new ProcessorMetrics(ringBuffer, 1, TimeUnit.SECONDS);
+        final long longAgo = System.nanoTime() - TimeUnit.SECONDS.toNanos(10);
+
+        metrics.recordBatch(-1L, 0L, 1L, longAgo - 1000L, longAgo);
+
+        assertThat(metrics.getBusyNanos(), is(1000L));
+        assertEquals(0.0, metrics.getUtilisation(), 0.0);
+    }
+}
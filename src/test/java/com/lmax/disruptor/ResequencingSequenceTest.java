@@ -0,0 +1,143 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.support.LongEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ResequencingSequenceTest
+{
+    @Test
+    public void shouldOnlyAdvanceOverContiguousCompletedSequences() throws Exception
+    {
+        final ResequencingSequence sequence = new ResequencingSequence(8);
+
+        sequence.markCompleted(1);
+        sequence.markCompleted(2);
+        assertThat(sequence.get(), is(-1L));
+
+        sequence.markCompleted(0);
+        assertThat(sequence.get(), is(2L));
+
+        sequence.markCompleted(4);
+        assertThat(sequence.get(), is(2L));
+
+        sequence.markCompleted(3);
+        assertThat(sequence.get(), is(4L));
+    }
+
+    @Test
+    public void shouldNotTreatCompletionFromAPreviousLapAsCompleted() throws Exception
+    {
+        final ResequencingSequence sequence = new ResequencingSequence(4);
+
+        for (long i = 0; i < 4; i++)
+        {
+            sequence.markCompleted(i);
+        }
+
+        assertTrue(sequence.isCompleted(3));
+        assertFalse(sequence.isCompleted(7));
+
+        sequence.markCompleted(5);
+        assertThat(sequence.get(), is(3L));
+
+        sequence.markCompleted(4);
+        assertThat(sequence.get(), is(5L));
+    }
+
+    @Test
+    public void shouldExposeWorkerPoolCompletionInPublicationOrder() throws Exception
+    {
+        final int bufferSize = 64;
+        final int iterations = 10000;
+        final RingBuffer<LongEvent> ringBuffer =
+            RingBuffer.createMultiProducer(LongEvent.FACTORY, bufferSize, new BlockingWaitStrategy());
+        final ResequencingSequence completedSequence = new ResequencingSequence(bufferSize);
+
+        final WorkHandler<LongEvent> handler = new WorkHandler<LongEvent>()
+        {
+            @Override
+            public void onEvent(final LongEvent event) throws Exception
+            {
+                if ((event.get() & 7) == 0)
+                {
+                    Thread.yield();
+                }
+                event.set(-event.get() - 1);
+            }
+        };
+
+        @SuppressWarnings("unchecked")
+        final WorkerPool<LongEvent> workerPool = new WorkerPool<LongEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new FatalExceptionHandler(), completedSequence,
+            handler, handler, handler, handler);
+        ringBuffer.addGatingSequences(workerPool.getWorkerSequences());
+
+        final AtomicBoolean inOrder = new AtomicBoolean(true);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final BatchEventProcessor<LongEvent> downstream = new BatchEventProcessor<LongEvent>(
+            ringBuffer, ringBuffer.newBarrier(workerPool.getCompletedSequence()), new EventHandler<LongEvent>()
+            {
+                private long expected = 0;
+
+                @Override
+                public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    if (event.get() != -expected++ - 1)
+                    {
+                        inOrder.set(false);
+                    }
+
+                    if (expected == iterations)
+                    {
+                        latch.countDown();
+                    }
+                }
+            });
+        ringBuffer.addGatingSequences(downstream.getSequence());
+
+        final Executor executor = Executors.newCachedThreadPool(DaemonThreadFactory.INSTANCE);
+        executor.execute(downstream);
+        workerPool.start(executor);
+
+        for (long i = 0; i < iterations; i++)
+        {
+            final long next = ringBuffer.next();
+            ringBuffer.get(next).set(i);
+            ringBuffer.publish(next);
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(inOrder.get());
+        assertThat(completedSequence.get(), is((long) iterations - 1));
+
+        workerPool.drainAndHalt();
+        downstream.halt();
+    }
+}
@@ -1,7 +1,12 @@
 package com.lmax.disruptor;
 
+import com.lmax.disruptor.support.StubEvent;
 import org.junit.Test;
 
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.core.IsNot.not;
 import static org.junit.Assert.*;
 
@@ -23,4 +28,62 @@ public class SingleProducerSequencerTest
             sequencer.publish(next);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldCountClaimsOnceStatsAreEnabled() throws Exception
+    {
+        final SingleProducerSequencer sequencer = new SingleProducerSequencer(1024, new BlockingWaitStrategy());
+        sequencer.next();
+        assertThat(sequencer.getStats(), is(nullValue()));
+
+        sequencer.enableStats();
+        sequencer.next();
+        sequencer.next(4);
+
+        final SequencerStats stats = sequencer.getStats();
+        assertThat(stats.getClaims(), is(2L));
+        assertThat(stats.getClaimAttempts(), is(2L));
+        assertThat(stats.getCasFailures(), is(0L));
+        assertThat(stats.getFullRingParks(), is(0L));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldCountParksWhileTheRingIsFull() throws Exception
+    {
+        final RingBuffer<StubEvent> ringBuffer = RingBuffer.createSingleProducer(StubEvent.EVENT_FACTORY, 4);
+        final Sequence gatingSequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+        ringBuffer.addGatingSequences(gatingSequence);
+        ringBuffer.enableSequencerStats();
+        for (int i = 0; i < 4; i++)
+        {
+            ringBuffer.publish(ringBuffer.next());
+        }
+
+        final Thread consumer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(50);
+                }
+                catch (final InterruptedException ignore)
+                {
+                }
+                gatingSequence.set(0);
+            }
+        });
+        consumer.start();
+        ringBuffer.next();
+
+        final SequencerStats stats = ringBuffer.getSequencerStats();
+        assertThat(stats.getClaims(), is(5L));
+        assertThat(stats.getCasFailures(), is(0L));
+        assertTrue(stats.getFullRingParks() > 0);
+        // The whole stall is counted, the consumer frees a slot about 50ms after the claim starts parking.
+        assertTrue(stats.getFullRingParkNanos() >= TimeUnit.MILLISECONDS.toNanos(25));
+        assertTrue(stats.getGatingCacheMisses() > 0);
+        assertThat(stats.getClaimAttempts(), is(5L + stats.getFullRingParks()));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.SlowEventSampler.SlowEvent;
+import com.lmax.disruptor.support.StubEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.lmax.disruptor.RingBuffer.createMultiProducer;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class SlowEventSamplerTest
+{
+    @Test
+    public void shouldKeepMostRecentEventsOverThreshold()
+    {
+        final SlowEventSampler<StubEvent> sampler = new SlowEventSampler<StubEvent>(
+            1000L, TimeUnit.NANOSECONDS, 2, new SlowEventSampler.Summarizer<StubEvent>()
+            {
+                @Override
+                public String summarize(final StubEvent event, final long sequence)
+                {
+                    return "value=" + event.getValue();
+                }
+            });
+
+        sampler.sample(new StubEvent(1), 1L, 0L, 999L);
+        sampler.sample(new StubEvent(2), 2L, 0L, 1000L);
+        sampler.sample(new StubEvent(3), 3L, 0L, 5000L);
+        sampler.sample(new StubEvent(4), 4L, 100L, 2100L);
+
+        final List<SlowEvent> slowEvents = sampler.getSlowEvents();
+        assertThat(sampler.getSlowEventCount(), is(3L));
+        assertThat(slowEvents.size(), is(2));
+        assertThat(slowEvents.get(0).getSequence(), is(3L));
+        assertThat(slowEvents.get(0).getDurationNanos(), is(5000L));
+        assertThat(slowEvents.get(0).getSummary(), is("value=3"));
+        assertThat(slowEvents.get(1).getSequence(), is(4L));
+        assertThat(slowEvents.get(1).getThreadName(), is(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void shouldRecordSlowEventOfBatchEventProcessor() throws Exception
+    {
+        final RingBuffer<StubEvent> ringBuffer = createMultiProducer(StubEvent.EVENT_FACTORY, 16);
+        final CountDownLatch latch = new CountDownLatch(3);
+        final BatchEventProcessor<StubEvent> processor = new BatchEventProcessor<StubEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new EventHandler<StubEvent>()
+            {
+                @Override
+                public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+                    throws Exception
+                {
+                    if (sequence == 1L)
+                    {
+                        Thread.sleep(50L);
+                    }
+                    latch.countDown();
+                }
+            });
+        final Ticker ticker = new Ticker(1, TimeUnit.MILLISECONDS, DaemonThreadFactory.INSTANCE);
+        final SlowEventSampler<StubEvent> sampler =
+            new SlowEventSampler<StubEvent>(ticker, 20L, TimeUnit.MILLISECONDS, 4, null);
+        processor.setSlowEventSampler(sampler);
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        final Thread thread = new Thread(processor);
+        thread.start();
+        ringBuffer.publish(ringBuffer.next());
+        ringBuffer.publish(ringBuffer.next());
+        ringBuffer.publish(ringBuffer.next());
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        processor.halt();
+        thread.join();
+        ticker.stop();
+
+        final List<SlowEvent> slowEvents = sampler.getSlowEvents();
+        assertThat(slowEvents.size(), is(1));
+        assertThat(slowEvents.get(0).getSequence(), is(1L));
+        assertTrue(slowEvents.get(0).getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(20L));
+        assertThat(slowEvents.get(0).getSummary(), is(nullValue()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectStoppedTicker()
+    {
+        final Ticker ticker = new Ticker(1, TimeUnit.MILLISECONDS, DaemonThreadFactory.INSTANCE);
+        ticker.start();
+        ticker.stop();
+
+        new SlowEventSampler<StubEvent>(ticker, 20L, TimeUnit.MILLISECONDS, 4, null);
+    }
+}
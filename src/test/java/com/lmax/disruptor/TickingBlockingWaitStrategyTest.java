@@ -0,0 +1,154 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.support.DummySequenceBarrier;
+import com.lmax.disruptor.support.LongEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.lmax.disruptor.support.WaitStrategyTestUtil.assertWaitForWithDelayOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class TickingBlockingWaitStrategyTest
+{
+    private final Ticker ticker = new Ticker(10, TimeUnit.MILLISECONDS, DaemonThreadFactory.INSTANCE);
+
+    @After
+    public void tearDown()
+    {
+        ticker.stop();
+    }
+
+    @Test
+    public void shouldWaitForValue() throws Exception
+    {
+        final Ticker slowTicker = new Ticker(1, TimeUnit.MINUTES, DaemonThreadFactory.INSTANCE);
+        try
+        {
+            assertWaitForWithDelayOf(50, new TickingBlockingWaitStrategy(slowTicker));
+        }
+        finally
+        {
+            slowTicker.stop();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void shouldReturnAvailableSequenceOnTick() throws Exception
+    {
+        final TickingBlockingWaitStrategy waitStrategy = new TickingBlockingWaitStrategy(ticker);
+        final Sequence cursor = new Sequence(3);
+
+        assertThat(waitStrategy.waitFor(4, cursor, cursor, new DummySequenceBarrier()), is(3L));
+        assertTrue(ticker.getTickCount() > 0);
+    }
+
+    @Test(timeout = 5000)
+    public void shouldReturnOnTickOfSharedTicker() throws Exception
+    {
+        final TickingBlockingWaitStrategy waitStrategy = new TickingBlockingWaitStrategy();
+        final Sequence cursor = new Sequence(3);
+        final long tickCount = Ticker.shared().getTickCount();
+
+        assertThat(waitStrategy.getTicker(), is(Ticker.shared()));
+        assertThat(waitStrategy.waitFor(4, cursor, cursor, new DummySequenceBarrier()), is(3L));
+        assertTrue(Ticker.shared().getTickCount() > tickCount);
+    }
+
+    @Test
+    public void shouldUnregisterTickHandler()
+    {
+        final TickHandler tickHandler = new TickHandler()
+        {
+            @Override
+            public void onTick(final long nanoTime)
+            {
+            }
+        };
+        ticker.register(tickHandler);
+
+        assertTrue(ticker.unregister(tickHandler));
+        assertFalse(ticker.unregister(tickHandler));
+        assertThat(ticker.getHandlerCount(), is(0));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldUnregisterFromTickerWhenDisruptorHalts() throws Exception
+    {
+        final Disruptor<LongEvent> disruptor = new Disruptor<LongEvent>(
+            LongEvent.FACTORY, 16, DaemonThreadFactory.INSTANCE, ProducerType.SINGLE,
+            new TickingBlockingWaitStrategy(ticker));
+        disruptor.handleEventsWith(new TickingHandler());
+        disruptor.start();
+        assertThat(ticker.getHandlerCount(), is(1));
+
+        disruptor.halt();
+
+        assertThat(ticker.getHandlerCount(), is(0));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldCallTickHandlerOfIdleProcessorWithoutMovingSequence() throws Exception
+    {
+        final RingBuffer<LongEvent> ringBuffer =
+            RingBuffer.createSingleProducer(LongEvent.FACTORY, 16, new TickingBlockingWaitStrategy(ticker));
+        final TickingHandler handler = new TickingHandler();
+        final BatchEventProcessor<LongEvent> processor =
+            new BatchEventProcessor<LongEvent>(ringBuffer, ringBuffer.newBarrier(), handler);
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        final Thread thread = new Thread(processor);
+        thread.setDaemon(true);
+        thread.start();
+
+        ringBuffer.publish(ringBuffer.next());
+        assertTrue(handler.ticks.await(4, TimeUnit.SECONDS));
+        assertThat(handler.lastSequence.get(), is(0L));
+        assertThat(processor.getSequence().get(), is(0L));
+
+        processor.halt();
+        thread.join(4000);
+    }
+
+    private static final class TickingHandler implements EventHandler<LongEvent>, TickHandler
+    {
+        private final CountDownLatch ticks = new CountDownLatch(3);
+        private final AtomicLong lastSequence = new AtomicLong(-1);
+
+        @Override
+        public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+        {
+            lastSequence.set(sequence);
+        }
+
+        @Override
+        public void onTick(final long nanoTime)
+        {
+            ticks.countDown();
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.lmax.disruptor;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
@@ -56,6 +58,31 @@ public class WorkerPoolTest
         assertThat(ringBuffer.get(1).get(), is(0L));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test(timeout = 2000)
+    public void shouldHaltOnceDrainedWithinTimeout() throws Exception
+    {
+        Executor executor = Executors.newCachedThreadPool(DaemonThreadFactory.INSTANCE);
+        WorkerPool<AtomicLong> pool = new WorkerPool<AtomicLong>(
+            new AtomicLongEventFactory(), new FatalExceptionHandler(),
+            new AtomicLongWorkHandler(), new AtomicLongWorkHandler());
+
+        RingBuffer<AtomicLong> ringBuffer = pool.start(executor);
+
+        for (int i = 0; i < 64; i++)
+        {
+            ringBuffer.publish(ringBuffer.next());
+        }
+
+        pool.drainAndHalt(1, TimeUnit.SECONDS);
+
+        assertFalse(pool.isRunning());
+        for (int i = 0; i < 64; i++)
+        {
+            assertThat(ringBuffer.get(i).get(), is(1L));
+        }
+    }
+
     private static class AtomicLongWorkHandler implements WorkHandler<AtomicLong>
     {
         @Override
@@ -17,6 +17,7 @@ package com.lmax.disruptor;
 
 import static com.lmax.disruptor.support.WaitStrategyTestUtil.assertWaitForWithDelayOf;
 
+import com.lmax.disruptor.support.StubEvent;
 import org.junit.Test;
 
 public class YieldingWaitStrategyTest
@@ -27,4 +28,44 @@ public class YieldingWaitStrategyTest
     {
         assertWaitForWithDelayOf(50, new YieldingWaitStrategy());
     }
+
+    @Test(expected = AlertException.class, timeout = 1000)
+    public void shouldNoticeAlertOnceSpinningEnds() throws Exception
+    {
+        final YieldingWaitStrategy waitStrategy = new YieldingWaitStrategy();
+        final RingBuffer<StubEvent> ringBuffer = RingBuffer.createSingleProducer(StubEvent.EVENT_FACTORY, 16, waitStrategy);
+        final SequenceBarrier barrier = ringBuffer.newBarrier();
+        final Sequence cursor = new Sequence();
+        barrier.alert();
+
+        waitStrategy.waitFor(0, cursor, cursor, barrier);
+    }
+
+    @Test(expected = AlertException.class, timeout = 1000)
+    public void shouldNoticeAlertWhileYielding() throws Exception
+    {
+        final YieldingWaitStrategy waitStrategy = new YieldingWaitStrategy();
+        final RingBuffer<StubEvent> ringBuffer = RingBuffer.createSingleProducer(StubEvent.EVENT_FACTORY, 16, waitStrategy);
+        final SequenceBarrier barrier = ringBuffer.newBarrier();
+        final Sequence cursor = new Sequence();
+        final Thread alerter = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(50);
+                }
+                catch (final InterruptedException ignore)
+                {
+                }
+                barrier.alert();
+            }
+        });
+        alerter.setDaemon(true);
+        alerter.start();
+
+        waitStrategy.waitFor(0, cursor, cursor, barrier);
+    }
 }
@@ -37,14 +37,22 @@ import com.lmax.disruptor.dsl.stubs.StubPublisher;
 import com.lmax.disruptor.dsl.stubs.StubThreadFactory;
 import com.lmax.disruptor.dsl.stubs.TestWorkHandler;
 import com.lmax.disruptor.support.TestEvent;
+import com.lmax.disruptor.util.MappedCounters;
+import com.lmax.disruptor.util.MappedCountersReader;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -54,6 +62,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
@@ -136,6 +145,38 @@ public class DisruptorTest
     }
 
 
+    @Test
+    public void shouldProcessEventsOnVirtualThreads() throws Exception
+    {
+        final Disruptor<TestEvent> virtualDisruptor =
+            Disruptor.createWithVirtualThreads(TestEvent.EVENT_FACTORY, 4);
+        final CountDownLatch eventCounter = new CountDownLatch(10);
+        virtualDisruptor.handleEventsWith(new EventHandler<TestEvent>()
+        {
+            @Override
+            public void onEvent(final TestEvent event, final long sequence, final boolean endOfBatch) throws Exception
+            {
+                eventCounter.countDown();
+            }
+        });
+        virtualDisruptor.start();
+
+        for (int i = 0; i < 10; i++)
+        {
+            virtualDisruptor.publishEvent(
+             new EventTranslator<TestEvent>()
+             {
+                 @Override
+                 public void translateTo(final TestEvent event, final long sequence)
+                 {
+                 }
+             });
+        }
+
+        assertTrue(eventCounter.await(5, TimeUnit.SECONDS));
+        virtualDisruptor.shutdown(5, TimeUnit.SECONDS);
+    }
+
     @Test
     public void shouldBatchOfEvents() throws Exception
     {
@@ -668,6 +709,26 @@ public class DisruptorTest
         delayedEventHandler.processEvent();
     }
 
+    @Test
+    public void shouldSupportUsingOrderedWorkerPoolAsDependency() throws Exception
+    {
+        final TestWorkHandler workHandler1 = createTestWorkHandler();
+        final TestWorkHandler workHandler2 = createTestWorkHandler();
+        final DelayedEventHandler delayedEventHandler = createDelayedEventHandler();
+        disruptor.handleEventsWithParallelOrdered(workHandler1, workHandler2).then(delayedEventHandler);
+
+        publishEvent();
+        publishEvent();
+
+        assertThat(disruptor.getBarrierFor(delayedEventHandler).getCursor(), equalTo(-1L));
+
+        workHandler2.processEvent();
+        workHandler1.processEvent();
+
+        delayedEventHandler.processEvent();
+        delayedEventHandler.processEvent();
+    }
+
     @Test
     public void shouldSupportUsingWorkerPoolWithADependency() throws Exception
     {
@@ -725,6 +786,123 @@ public class DisruptorTest
         //Then
     }
 
+    @Test(timeout = 2000)
+    public void shouldReportBacklogAndShutdownAsynchronously() throws Exception
+    {
+        //Given
+        final DelayedEventHandler delayedEventHandler = createDelayedEventHandler();
+        disruptor.handleEventsWith(delayedEventHandler);
+        publishEvent();
+        publishEvent();
+
+        //When
+        assertThat(disruptor.getBacklog(), is(2L));
+        final Future<Void> shutdown = disruptor.shutdownAsync(1, SECONDS);
+        delayedEventHandler.processEvent();
+        delayedEventHandler.processEvent();
+
+        //Then
+        shutdown.get();
+        assertThat(disruptor.getBacklog(), is(0L));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldFillReusableTopologySnapshot() throws Exception
+    {
+        //Given
+        final DelayedEventHandler delayedEventHandler = createDelayedEventHandler();
+        disruptor.handleEventsWith(delayedEventHandler);
+        publishEvent();
+        publishEvent();
+
+        //When
+        final TopologySnapshot snapshot = disruptor.snapshot(null);
+
+        //Then
+        assertThat(snapshot.getBufferSize(), is(4));
+        assertThat(snapshot.getCursor(), is(1L));
+        assertThat(snapshot.getConsumerCount(), is(1));
+        assertThat(snapshot.getName(0), is("0-DelayedEventHandler"));
+        assertThat(snapshot.getSequence(0), is(-1L));
+        assertThat(snapshot.getLag(0), is(2L));
+        assertTrue(snapshot.isRunning(0));
+        assertTrue(snapshot.isEndOfChain(0));
+        assertThat(snapshot.getBacklog(), is(2L));
+        assertThat(snapshot.getRemainingCapacity(), is(2L));
+
+        delayedEventHandler.processEvent();
+        delayedEventHandler.processEvent();
+        while (disruptor.snapshot(snapshot).getBacklog() != 0L)
+        {
+            yield();
+        }
+        assertSame(snapshot, disruptor.snapshot(snapshot));
+        assertThat(snapshot.getSequence(0), is(1L));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldExportTopologyToMappedCounters() throws Exception
+    {
+        final File file = File.createTempFile("disruptor", ".counters");
+        file.deleteOnExit();
+        final DelayedEventHandler delayedEventHandler = createDelayedEventHandler();
+        disruptor.handleEventsWith(delayedEventHandler);
+        publishEvent();
+
+        final CountersExporter exporter = new CountersExporter(disruptor, MappedCounters.create(file, 8), "test.");
+        exporter.run();
+
+        final MappedCountersReader reader = MappedCountersReader.open(file);
+        assertThat(reader.getCount(), is(5));
+        assertThat(reader.getLabel(0), is("test.cursor"));
+        assertThat(reader.getValue(0), is(0L));
+        assertThat(reader.getLabel(2), is("test.backlog"));
+        assertThat(reader.getValue(2), is(1L));
+        assertThat(reader.getLabel(4), is("test.0-DelayedEventHandler.lag"));
+        assertThat(reader.getValue(4), is(1L));
+
+        delayedEventHandler.processEvent();
+        while (reader.getValue(2) != 0L)
+        {
+            exporter.run();
+            yield();
+        }
+        assertThat(reader.getValue(3), is(0L));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldExposeRingBufferAndConsumersThroughMBeans() throws Exception
+    {
+        final CountDownLatch countDownLatch = new CountDownLatch(2);
+        disruptor.handleEventsWith(new EventHandlerStub<TestEvent>(countDownLatch));
+        disruptor.enableProcessorMetrics();
+        final List<ObjectName> names = disruptor.registerMBeans("com.lmax.disruptor.test");
+        try
+        {
+            publishEvent();
+            publishEvent();
+            assertTrue(countDownLatch.await(2, SECONDS));
+
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertThat(names.size(), is(2));
+            assertThat((Integer) server.getAttribute(names.get(0), "BufferSize"), is(4));
+            assertThat((Long) server.getAttribute(names.get(0), "Cursor"), is(1L));
+            assertThat((String) server.getAttribute(names.get(0), "WaitStrategy"), is("BlockingWaitStrategy"));
+            assertThat((Boolean) server.getAttribute(names.get(1), "EndOfChain"), is(true));
+            while ((Long) server.getAttribute(names.get(1), "EventCount") != 2L)
+            {
+                yield();
+            }
+            assertThat((Long) server.getAttribute(names.get(1), "Lag"), is(0L));
+        }
+        finally
+        {
+            disruptor.unregisterMBeans();
+        }
+
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(names.get(0)));
+    }
+
     @Test(timeout = 1000)
     public void shouldTrackRemainingCapacity() throws Exception
     {
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class MappedCountersTest
+{
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadLabelsAndValuesWrittenToTheFile() throws Exception
+    {
+        final File file = folder.newFile("counters.dat");
+        final MappedCounters counters = MappedCounters.create(file, 4);
+        final int cursor = counters.allocate("cursor");
+        final int lag = counters.allocate("consumer.lag");
+        counters.set(cursor, 42L);
+        counters.set(lag, -7L);
+
+        final MappedCountersReader reader = MappedCountersReader.open(file);
+
+        assertThat(reader.getCapacity(), is(4));
+        assertThat(reader.getCount(), is(2));
+        assertThat(reader.getLabel(0), is("cursor"));
+        assertThat(reader.getLabel(1), is("consumer.lag"));
+        assertThat(reader.getValue(0), is(42L));
+        assertThat(reader.getValue(1), is(-7L));
+
+        counters.set(cursor, 43L);
+        final int backlog = counters.allocate("backlog");
+        assertThat(reader.getValue(cursor), is(43L));
+        assertThat(reader.getCount(), is(3));
+        assertThat(reader.getLabel(backlog), is("backlog"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAllocateMoreCountersThanCapacity() throws Exception
+    {
+        final MappedCounters counters = MappedCounters.create(folder.newFile("counters.dat"), 1);
+        counters.allocate("first");
+        counters.allocate("second");
+    }
+
+    @Test
+    public void shouldRejectFileThatDoesNotHoldCounters() throws Exception
+    {
+        final File file = folder.newFile("other.dat");
+        try (FileOutputStream out = new FileOutputStream(file))
+        {
+            out.write(new byte[128]);
+        }
+
+        try
+        {
+            MappedCountersReader.open(file);
+            fail("Should have rejected the file");
+        }
+        catch (final IOException e)
+        {
+            // Expected
+        }
+    }
+}
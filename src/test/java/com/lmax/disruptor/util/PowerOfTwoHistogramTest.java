@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PowerOfTwoHistogramTest
+{
+    @Test
+    public void shouldRecordValuesInPowerOfTwoBuckets()
+    {
+        final PowerOfTwoHistogram histogram = new PowerOfTwoHistogram();
+
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(2);
+        histogram.record(3);
+        histogram.record(1000);
+
+        assertThat(histogram.getTotalCount(), is(5L));
+        assertThat(histogram.getCountAtBucket(0), is(1L));
+        assertThat(histogram.getCountAtBucket(1), is(1L));
+        assertThat(histogram.getCountAtBucket(2), is(2L));
+        assertThat(histogram.getCountAtBucket(10), is(1L));
+        assertThat(histogram.getMaxValue(), is(1000L));
+    }
+
+    @Test
+    public void shouldReportUpperBoundOfPercentileBucket()
+    {
+        final PowerOfTwoHistogram histogram = new PowerOfTwoHistogram();
+        for (int i = 0; i < 99; i++)
+        {
+            histogram.record(5);
+        }
+        histogram.record(100000);
+
+        assertThat(histogram.getValueAtPercentile(50.0), is(7L));
+        assertThat(histogram.getValueAtPercentile(99.0), is(7L));
+        assertThat(histogram.getValueAtPercentile(100.0), is(100000L));
+    }
+
+    @Test
+    public void shouldAddCountsToAnotherHistogram()
+    {
+        final PowerOfTwoHistogram histogram = new PowerOfTwoHistogram();
+        final PowerOfTwoHistogram total = new PowerOfTwoHistogram();
+        histogram.record(12);
+        total.record(3);
+
+        histogram.addTo(total);
+
+        assertThat(total.getTotalCount(), is(2L));
+        assertThat(total.getMaxValue(), is(12L));
+    }
+}